@@ -0,0 +1,180 @@
+package com.banking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput (rows/s) for transaction and repayment rows, written the way
+ * Hibernate writes them under each id strategy:
+ * <ul>
+ *   <li>IDENTITY: one INSERT round trip per row to read back the generated key, no batching</li>
+ *   <li>POOLED: one nextval() per 50 ids, rows sent in JDBC batches of 20 (hibernate.jdbc.batch_size)</li>
+ * </ul>
+ * Runs against scratch tables in a PostgreSQL database given by {@code bench.jdbc.url}:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.args="IdGenerationInsertBenchmark -jvmArgs -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/banking_bench"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class IdGenerationInsertBenchmark {
+
+    private static final int ROWS_PER_FLUSH = 100;
+    private static final int JDBC_BATCH_SIZE = 20;
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Param({"transactions", "loan_repayments"})
+    public String table;
+
+    @Param({"IDENTITY", "POOLED"})
+    public String strategy;
+
+    private Connection connection;
+    private String benchTable;
+    private String sequence;
+    private long rowCounter;
+    private long nextId;
+    private long highId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/banking_bench"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+        connection.setAutoCommit(false);
+
+        benchTable = "bench_" + table + "_" + strategy.toLowerCase();
+        sequence = benchTable + "_seq";
+        String idColumn = "IDENTITY".equals(strategy)
+                ? "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY"
+                : "id BIGINT PRIMARY KEY";
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + benchTable);
+            statement.execute("DROP SEQUENCE IF EXISTS " + sequence);
+            statement.execute("CREATE TABLE " + benchTable + " (" + idColumn + ", " + columnDefinitions() + ")");
+            statement.execute("CREATE SEQUENCE " + sequence + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + benchTable);
+            statement.execute("DROP SEQUENCE IF EXISTS " + sequence);
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_FLUSH)
+    public void insert() throws SQLException {
+        if ("IDENTITY".equals(strategy)) {
+            insertWithIdentity();
+        } else {
+            insertWithPooledSequence();
+        }
+        connection.commit();
+    }
+
+    private void insertWithIdentity() throws SQLException {
+        String sql = "INSERT INTO " + benchTable + " (" + columnNames() + ") VALUES (" + placeholders() + ")";
+        try (PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"})) {
+            for (int i = 0; i < ROWS_PER_FLUSH; i++) {
+                bindRow(ps, 1);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+        }
+    }
+
+    private void insertWithPooledSequence() throws SQLException {
+        String sql = "INSERT INTO " + benchTable + " (id, " + columnNames() + ") VALUES (?, " + placeholders() + ")";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < ROWS_PER_FLUSH; i++) {
+                ps.setLong(1, nextPooledId());
+                bindRow(ps, 2);
+                ps.addBatch();
+                if ((i + 1) % JDBC_BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private long nextPooledId() throws SQLException {
+        if (nextId == 0 || nextId > highId) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT nextval('" + sequence + "')")) {
+                rs.next();
+                highId = rs.getLong(1);
+                nextId = highId - ALLOCATION_SIZE + 1;
+            }
+        }
+        return nextId++;
+    }
+
+    private String columnDefinitions() {
+        if ("transactions".equals(table)) {
+            return "transaction_ref VARCHAR(50) NOT NULL UNIQUE, source_account_id BIGINT, " +
+                    "destination_account_id BIGINT, transaction_type VARCHAR(20) NOT NULL, " +
+                    "amount NUMERIC(15, 2) NOT NULL, currency VARCHAR(3), description TEXT, " +
+                    "status VARCHAR(20) NOT NULL, created_at TIMESTAMP(6) NOT NULL";
+        }
+        return "loan_id BIGINT NOT NULL, payment_ref VARCHAR(50) NOT NULL UNIQUE, amount NUMERIC(15, 2) NOT NULL, " +
+                "principal_amount NUMERIC(15, 2), interest_amount NUMERIC(15, 2), " +
+                "payment_date TIMESTAMP(6) NOT NULL, payment_method VARCHAR(20), status VARCHAR(20) NOT NULL";
+    }
+
+    private String columnNames() {
+        if ("transactions".equals(table)) {
+            return "transaction_ref, source_account_id, destination_account_id, transaction_type, " +
+                    "amount, currency, description, status, created_at";
+        }
+        return "loan_id, payment_ref, amount, principal_amount, interest_amount, payment_date, payment_method, status";
+    }
+
+    private String placeholders() {
+        return "transactions".equals(table) ? "?, ?, ?, ?, ?, ?, ?, ?, ?" : "?, ?, ?, ?, ?, ?, ?, ?";
+    }
+
+    private void bindRow(PreparedStatement ps, int first) throws SQLException {
+        long n = ++rowCounter;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if ("transactions".equals(table)) {
+            ps.setString(first, "TXN" + n);
+            ps.setLong(first + 1, 1L);
+            ps.setLong(first + 2, 2L);
+            ps.setString(first + 3, "TRANSFER");
+            ps.setBigDecimal(first + 4, new BigDecimal("125.50"));
+            ps.setString(first + 5, "USD");
+            ps.setString(first + 6, "Benchmark transfer");
+            ps.setString(first + 7, "COMPLETED");
+            ps.setTimestamp(first + 8, now);
+        } else {
+            ps.setLong(first, 1L);
+            ps.setString(first + 1, "PAY" + n);
+            ps.setBigDecimal(first + 2, new BigDecimal("450.00"));
+            ps.setBigDecimal(first + 3, new BigDecimal("380.25"));
+            ps.setBigDecimal(first + 4, new BigDecimal("69.75"));
+            ps.setTimestamp(first + 5, now);
+            ps.setString(first + 6, "DEBIT");
+            ps.setString(first + 7, "COMPLETED");
+        }
+    }
+}
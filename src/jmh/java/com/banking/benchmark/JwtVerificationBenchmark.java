@@ -0,0 +1,85 @@
+package com.banking.benchmark;
+
+import com.banking.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying the bearer token of one request:
+ * <ul>
+ *   <li>rebuildPerCall: the previous path, key and parser rebuilt and the token verified three times</li>
+ *   <li>singleParse: shared key and parser, one verification (a cache miss without the digest)</li>
+ *   <li>cachedHit: token already in the verified-token cache</li>
+ * </ul>
+ * No database needed:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.args="JwtVerificationBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long";
+    private static final long EXPIRATION_MS = 3_600_000L;
+
+    private JwtParser sharedParser;
+    private JwtUtil cachedJwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        sharedParser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        cachedJwtUtil = new JwtUtil(SECRET, EXPIRATION_MS, 10_000);
+        userDetails = User.withUsername("jane@example.com").password("n/a").roles("CUSTOMER").build();
+        token = cachedJwtUtil.generateToken(userDetails, Map.of("userId", 42L, "roles", List.of("CUSTOMER")));
+        cachedJwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public boolean rebuildPerCall() {
+        String username = previousParse(token).getSubject();
+        return username.equals(userDetails.getUsername())
+                && previousParse(token).getSubject().equals(userDetails.getUsername())
+                && previousParse(token).getExpiration().getTime() > System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        Claims claims = sharedParser.parseSignedClaims(token).getPayload();
+        return cachedJwtUtil.validateToken(claims, userDetails);
+    }
+
+    @Benchmark
+    public boolean cachedHit() {
+        Claims claims = cachedJwtUtil.extractAllClaims(token);
+        return cachedJwtUtil.validateToken(claims, userDetails);
+    }
+
+    private static Claims previousParse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
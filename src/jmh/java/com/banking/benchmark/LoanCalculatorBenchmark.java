@@ -0,0 +1,89 @@
+package com.banking.benchmark;
+
+import com.banking.util.LoanCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one loan calculation across term lengths:
+ * <ul>
+ *   <li>*Exact: the BigDecimal reference ({@code pow(termMonths)} at scale 10 and repeated divides)</li>
+ *   <li>*LongCents: the fast path of {@link LoanCalculator} in long cents and scaled-integer rates</li>
+ * </ul>
+ * Inputs cycle through {@code INPUTS} random principals (1,000.00 to 1,000,000.00) and rates
+ * (0.01% to 30.00%). Before measuring, every input is run through both paths and the run
+ * fails if any result differs, scale included. No database needed:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.args="LoanCalculatorBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LoanCalculatorBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    @Param({"6", "60", "360"})
+    public int termMonths;
+
+    private final BigDecimal[] principals = new BigDecimal[INPUTS];
+    private final BigDecimal[] rates = new BigDecimal[INPUTS];
+    private final BigDecimal[] payments = new BigDecimal[INPUTS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < INPUTS; i++) {
+            principals[i] = BigDecimal.valueOf(random.nextLong(100_000, 100_000_001), 2);
+            rates[i] = BigDecimal.valueOf(random.nextLong(1, 3_001), 2);
+            payments[i] = LoanCalculator.calculateMonthlyPaymentExact(principals[i], rates[i], termMonths);
+
+            BigDecimal fast = LoanCalculator.calculateMonthlyPayment(principals[i], rates[i], termMonths);
+            if (!fast.equals(payments[i])) {
+                throw new IllegalStateException("Monthly payment " + fast + " != " + payments[i]
+                        + " for " + principals[i] + " at " + rates[i] + "%");
+            }
+            BigDecimal[] fastPortions = LoanCalculator.calculatePaymentPortions(payments[i], principals[i], rates[i]);
+            BigDecimal[] exactPortions = LoanCalculator.calculatePaymentPortionsExact(payments[i], principals[i], rates[i]);
+            if (!fastPortions[0].equals(exactPortions[0]) || !fastPortions[1].equals(exactPortions[1])) {
+                throw new IllegalStateException("Payment portions differ for " + principals[i] + " at " + rates[i] + "%");
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal monthlyPaymentExact() {
+        int i = nextInput();
+        return LoanCalculator.calculateMonthlyPaymentExact(principals[i], rates[i], termMonths);
+    }
+
+    @Benchmark
+    public BigDecimal monthlyPaymentLongCents() {
+        int i = nextInput();
+        return LoanCalculator.calculateMonthlyPayment(principals[i], rates[i], termMonths);
+    }
+
+    @Benchmark
+    public BigDecimal[] paymentPortionsExact() {
+        int i = nextInput();
+        return LoanCalculator.calculatePaymentPortionsExact(payments[i], principals[i], rates[i]);
+    }
+
+    @Benchmark
+    public BigDecimal[] paymentPortionsLongCents() {
+        int i = nextInput();
+        return LoanCalculator.calculatePaymentPortions(payments[i], principals[i], rates[i]);
+    }
+
+    private int nextInput() {
+        return next = (next + 1) & (INPUTS - 1);
+    }
+}
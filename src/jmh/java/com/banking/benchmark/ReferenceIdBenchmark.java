@@ -0,0 +1,123 @@
+package com.banking.benchmark;
+
+import com.banking.util.SnowflakeIdGenerator;
+import com.banking.util.TransactionRefGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Transaction references per second from four threads:
+ * <ul>
+ *   <li>legacy: the previous timestamp format plus three digits from a shared SecureRandom</li>
+ *   <li>snowflake: {@link TransactionRefGenerator} backed by {@link SnowflakeIdGenerator}</li>
+ * </ul>
+ * The {@code *Uniqueness} benchmarks are single shots in which each thread issues
+ * {@code bench.uniqueness.refs} references into one shared set; the repeats are reported as
+ * their {@code duplicates} secondary result, and the run fails if a snowflake reference repeats.
+ * No database needed:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.args="ReferenceIdBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(ReferenceIdBenchmark.THREADS)
+@Fork(1)
+public class ReferenceIdBenchmark {
+
+    static final int THREADS = 4;
+
+    private static final int REFS_PER_THREAD = Integer.getInteger("bench.uniqueness.refs", 250_000);
+
+    private static final SecureRandom LEGACY_RANDOM = new SecureRandom();
+
+    /**
+     * References issued by all threads in one iteration of a uniqueness benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class IssuedRefs {
+
+        final Set<String> refs = ConcurrentHashMap.newKeySet(THREADS * REFS_PER_THREAD);
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            refs.clear();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class IssuedSnowflakeRefs extends IssuedRefs {
+
+        @TearDown(Level.Iteration)
+        public void requireUnique() {
+            long duplicates = (long) THREADS * REFS_PER_THREAD - refs.size();
+            if (duplicates > 0) {
+                throw new IllegalStateException("Snowflake references repeated " + duplicates + " times");
+            }
+        }
+    }
+
+    // Summed over the threads of an iteration and reported next to the primary result
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Duplicates {
+
+        public long duplicates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            duplicates = 0;
+        }
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacyRef();
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return TransactionRefGenerator.generate();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void legacyUniqueness(IssuedRefs issued, Duplicates counter) {
+        counter.duplicates += issue(ReferenceIdBenchmark::legacyRef, issued.refs);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void snowflakeUniqueness(IssuedSnowflakeRefs issued, Duplicates counter) {
+        counter.duplicates += issue(TransactionRefGenerator::generate, issued.refs);
+    }
+
+    private static String legacyRef() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"));
+        int randomNum = 100 + LEGACY_RANDOM.nextInt(900);
+        return "TXN" + timestamp + randomNum;
+    }
+
+    private static long issue(Supplier<String> generator, Set<String> refs) {
+        long duplicates = 0;
+        for (int i = 0; i < REFS_PER_THREAD; i++) {
+            if (!refs.add(generator.get())) {
+                duplicates++;
+            }
+        }
+        return duplicates;
+    }
+}
@@ -0,0 +1,173 @@
+package com.banking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer throughput and abort rate when many writers hit a few hot accounts, for
+ * both {@code posting.lock-mode} settings:
+ * <ul>
+ *   <li>OPTIMISTIC: read both rows, then version-checked UPDATEs; a lost race rolls back and counts as aborted</li>
+ *   <li>PESSIMISTIC: {@code SELECT ... FOR UPDATE ORDER BY id}, then plain UPDATEs; waiting replaces aborting</li>
+ * </ul>
+ * {@code committed} and {@code aborted} are reported as secondary metrics (ops/s).
+ * Runs against a scratch table in the database given by {@code bench.jdbc.url}:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.args="TransferLockingBenchmark -jvmArgs -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/banking_bench"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class TransferLockingBenchmark {
+
+    private static final String TABLE = "bench_hot_accounts";
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @State(Scope.Benchmark)
+    public static class Accounts {
+
+        @Param({"OPTIMISTIC", "PESSIMISTIC"})
+        public String mode;
+
+        @Param({"2", "16"})
+        public int hotAccounts;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + TABLE);
+                statement.execute("CREATE TABLE " + TABLE +
+                        " (id BIGINT PRIMARY KEY, balance NUMERIC(19, 2) NOT NULL, version BIGINT NOT NULL)");
+                statement.execute("INSERT INTO " + TABLE + " SELECT g, " + OPENING_BALANCE +
+                        ", 0 FROM generate_series(1, " + hotAccounts + ") g");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long committed;
+        public long aborted;
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        private Connection connection;
+        private PreparedStatement select;
+        private PreparedStatement lock;
+        private PreparedStatement versionedUpdate;
+        private PreparedStatement update;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            connection = connect();
+            connection.setAutoCommit(false);
+            select = connection.prepareStatement(
+                    "SELECT id, balance, version FROM " + TABLE + " WHERE id IN (?, ?) ORDER BY id");
+            lock = connection.prepareStatement(
+                    "SELECT id, balance, version FROM " + TABLE + " WHERE id IN (?, ?) ORDER BY id FOR UPDATE");
+            versionedUpdate = connection.prepareStatement(
+                    "UPDATE " + TABLE + " SET balance = ?, version = version + 1 WHERE id = ? AND version = ?");
+            update = connection.prepareStatement(
+                    "UPDATE " + TABLE + " SET balance = ?, version = version + 1 WHERE id = ?");
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET lock_timeout = 3000");
+            }
+            connection.commit();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void transfer(Accounts accounts, Session session, Outcome outcome) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long source = random.nextLong(1, accounts.hotAccounts + 1);
+        long destination = random.nextLong(1, accounts.hotAccounts);
+        if (destination >= source) {
+            destination++;
+        }
+
+        boolean pessimistic = "PESSIMISTIC".equals(accounts.mode);
+        try {
+            if (pessimistic ? transferLocked(session, source, destination) : transferVersioned(session, source, destination)) {
+                session.connection.commit();
+                outcome.committed++;
+            } else {
+                session.connection.rollback();
+                outcome.aborted++;
+            }
+        } catch (SQLException ex) {
+            // Lock timeouts and deadlocks count as aborts as well
+            session.connection.rollback();
+            outcome.aborted++;
+        }
+    }
+
+    private static boolean transferVersioned(Session session, long source, long destination) throws SQLException {
+        Row[] rows = read(session.select, source, destination);
+        for (Row row : rows) {
+            session.versionedUpdate.setBigDecimal(1, row.id == source ? row.balance.subtract(AMOUNT) : row.balance.add(AMOUNT));
+            session.versionedUpdate.setLong(2, row.id);
+            session.versionedUpdate.setLong(3, row.version);
+            if (session.versionedUpdate.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean transferLocked(Session session, long source, long destination) throws SQLException {
+        Row[] rows = read(session.lock, source, destination);
+        for (Row row : rows) {
+            session.update.setBigDecimal(1, row.id == source ? row.balance.subtract(AMOUNT) : row.balance.add(AMOUNT));
+            session.update.setLong(2, row.id);
+            session.update.executeUpdate();
+        }
+        return true;
+    }
+
+    private static Row[] read(PreparedStatement statement, long source, long destination) throws SQLException {
+        statement.setLong(1, source);
+        statement.setLong(2, destination);
+        Row[] rows = new Row[2];
+        int next = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rows[next++] = new Row(rs.getLong(1), rs.getBigDecimal(2), rs.getLong(3));
+            }
+        }
+        return rows;
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/banking_bench"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+    }
+
+    private record Row(long id, BigDecimal balance, long version) {
+    }
+}
@@ -54,7 +54,7 @@ public class CorsConfig {
         }
 
         // Commonly useful exposed headers (safe to include)
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Location", "Content-Disposition"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Location", "Content-Disposition", "Idempotent-Replayed"));
 
         configuration.setAllowCredentials(allowCredentials);
         configuration.setMaxAge(3600L);
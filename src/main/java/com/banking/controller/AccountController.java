@@ -2,14 +2,21 @@ package com.banking.controller;
 
 import com.banking.dto.*;
 import com.banking.service.AccountService;
+import com.banking.service.StatementService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/accounts")
@@ -19,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 public class AccountController {
 
     private final AccountService accountService;
+    private final StatementService statementService;
 
     @GetMapping
     @Operation(summary = "Get all accounts for authenticated user")
@@ -40,4 +48,19 @@ public class AccountController {
         AccountBalanceResponse response = accountService.getAccountBalance(accountId);
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/{accountId}/statement")
+    @Operation(summary = "Download the account statement as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> getStatement(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format) {
+        StatementService.StatementExport export = statementService.export(accountId, from, to, format);
+        return ResponseEntity.ok()
+                .contentType(export.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(export.filename()).build().toString())
+                .body(export.body());
+    }
 }
\ No newline at end of file
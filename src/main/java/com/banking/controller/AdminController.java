@@ -3,6 +3,7 @@ package com.banking.controller;
 import com.banking.dto.*;
 import com.banking.service.AdminService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -33,6 +34,18 @@ public class AdminController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/users/search")
+    @Operation(summary = "Search users by name, email or account number, best matches first")
+    public ResponseEntity<UserSearchResponse> searchUsers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Keyset cursor; omit it for the first page, then send the returned nextCursor")
+            @RequestParam(required = false) String cursor) {
+
+        UserSearchResponse response = adminService.searchUsers(q, cursor, size);
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/users/{userId}/status")
     @Operation(summary = "Activate or deactivate a user")
     public ResponseEntity<UserDto> updateUserStatus(
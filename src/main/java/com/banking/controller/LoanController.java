@@ -1,8 +1,10 @@
 package com.banking.controller;
 
 import com.banking.dto.*;
+import com.banking.service.IdempotencyService;
 import com.banking.service.LoanService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 public class LoanController {
 
     private final LoanService loanService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/apply")
     @Operation(summary = "Apply for a loan")
@@ -46,15 +49,30 @@ public class LoanController {
     @Operation(summary = "Make a loan repayment")
     public ResponseEntity<LoanRepaymentResponse> makeLoanRepayment(
             @PathVariable Long loanId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody LoanRepaymentRequest request) {
-        LoanRepaymentResponse response = loanService.makeLoanRepayment(loanId, request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+        return idempotencyService.execute(idempotencyKey, "POST /loans/" + loanId + "/repay", request,
+                LoanRepaymentResponse.class, () -> {
+                    LoanRepaymentResponse response = loanService.makeLoanRepayment(loanId, request);
+                    return new ResponseEntity<>(response, HttpStatus.CREATED);
+                });
     }
 
     @GetMapping("/{loanId}/repayments")
     @Operation(summary = "Get repayment history for a loan")
-    public ResponseEntity<LoanRepaymentListResponse> getLoanRepayments(@PathVariable Long loanId) {
-        LoanRepaymentListResponse response = loanService.getLoanRepayments(loanId);
+    public ResponseEntity<LoanRepaymentListResponse> getLoanRepayments(
+            @PathVariable Long loanId,
+            @Parameter(description = "Keyset cursor; omit for the first page, then send the returned nextCursor")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        LoanRepaymentListResponse response = loanService.getLoanRepayments(loanId, cursor, size);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{loanId}/schedule")
+    @Operation(summary = "Get the amortization schedule of a disbursed loan")
+    public ResponseEntity<LoanScheduleResponse> getLoanSchedule(@PathVariable Long loanId) {
+        LoanScheduleResponse response = loanService.getLoanSchedule(loanId);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+}
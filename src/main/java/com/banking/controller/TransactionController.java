@@ -1,8 +1,10 @@
 package com.banking.controller;
 
 import com.banking.dto.*;
+import com.banking.service.IdempotencyService;
 import com.banking.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -22,26 +24,55 @@ import java.time.LocalDateTime;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/deposit")
     @Operation(summary = "Deposit money into an account")
-    public ResponseEntity<TransactionResponse> deposit(@Valid @RequestBody DepositRequest request) {
-        TransactionResponse response = transactionService.deposit(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    public ResponseEntity<TransactionResponse> deposit(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody DepositRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /transactions/deposit", request,
+                TransactionResponse.class, () -> {
+                    TransactionResponse response = transactionService.deposit(request);
+                    return new ResponseEntity<>(response, HttpStatus.CREATED);
+                }, transactionService::settlement);
     }
 
     @PostMapping("/withdraw")
     @Operation(summary = "Withdraw money from an account")
-    public ResponseEntity<TransactionResponse> withdraw(@Valid @RequestBody WithdrawRequest request) {
-        TransactionResponse response = transactionService.withdraw(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    public ResponseEntity<TransactionResponse> withdraw(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody WithdrawRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /transactions/withdraw", request,
+                TransactionResponse.class, () -> {
+                    TransactionResponse response = transactionService.withdraw(request);
+                    return new ResponseEntity<>(response, HttpStatus.CREATED);
+                }, transactionService::settlement);
     }
 
     @PostMapping("/transfer")
     @Operation(summary = "Transfer money between accounts")
-    public ResponseEntity<TransactionResponse> transfer(@Valid @RequestBody TransferRequest request) {
-        TransactionResponse response = transactionService.transfer(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    public ResponseEntity<TransactionResponse> transfer(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody TransferRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /transactions/transfer", request,
+                TransactionResponse.class, () -> {
+                    TransactionResponse response = transactionService.transfer(request);
+                    return new ResponseEntity<>(response, HttpStatus.CREATED);
+                }, transactionService::settlement);
+    }
+
+    @PostMapping("/transfers/batch")
+    @Operation(summary = "Transfer money in bulk, all-or-nothing or best-effort")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody BatchTransferRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /transactions/transfers/batch", request,
+                BatchTransferResponse.class, () -> {
+                    BatchTransferResponse response = transactionService.transferBatch(request);
+                    HttpStatus status = response.getSuccessCount() > 0 ? HttpStatus.CREATED : HttpStatus.UNPROCESSABLE_ENTITY;
+                    return new ResponseEntity<>(response, status);
+                });
     }
 
     @GetMapping
@@ -51,10 +82,13 @@ public class TransactionController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Keyset cursor; send it empty for the first page, then the returned nextCursor")
+            @RequestParam(required = false) String cursor) {
 
-        TransactionListResponse response = transactionService.getTransactions(
-                accountId, startDate, endDate, page, size);
+        TransactionListResponse response = cursor != null
+                ? transactionService.getTransactionsAfter(accountId, startDate, endDate, cursor, size)
+                : transactionService.getTransactions(accountId, startDate, endDate, page, size);
         return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransferItemDto {
+    private int index;
+    private Long sourceAccountId;
+    private String destinationAccountNumber;
+    private BigDecimal amount;
+    private ItemStatus status;
+    private String transactionRef;
+    private String error;
+
+    public enum ItemStatus {
+        COMPLETED,
+        REJECTED,
+        NOT_APPLIED
+    }
+}
@@ -0,0 +1,20 @@
+package com.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransferResponse {
+    private BatchTransferRequest.Mode mode;
+    private int totalCount;
+    private int successCount;
+    private int failureCount;
+    private List<BatchTransferItemDto> results;
+}
@@ -0,0 +1,29 @@
+package com.banking.dto;
+
+import com.banking.entity.LoanInstallment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanInstallmentDto {
+    private Integer installmentNumber;
+    private LocalDate dueDate;
+    private BigDecimal principalDue;
+    private BigDecimal interestDue;
+    private BigDecimal totalDue;
+    private BigDecimal principalPaid;
+    private BigDecimal interestPaid;
+    private BigDecimal amountOutstanding;
+    private LoanInstallment.InstallmentStatus status;
+    private boolean overdue;
+    private LocalDateTime paidDate;
+}
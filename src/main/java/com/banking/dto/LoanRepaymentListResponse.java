@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -15,5 +16,10 @@ import java.util.List;
 public class LoanRepaymentListResponse {
     private List<LoanRepaymentDto> repayments;
     private BigDecimal totalRepaid;
+    private BigDecimal totalInterestPaid;
+    private LocalDateTime lastPaymentDate;
+    private Integer repaymentCount;
     private BigDecimal remainingBalance;
+    // Set while more repayments follow; pass back as ?cursor= for the next page
+    private String nextCursor;
 }
@@ -0,0 +1,22 @@
+package com.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanScheduleResponse {
+    private String loanNumber;
+    private BigDecimal monthlyPayment;
+    private BigDecimal outstandingBalance;
+    // Null once every installment is paid
+    private Integer nextInstallment;
+    private List<LoanInstallmentDto> installments;
+}
@@ -14,5 +14,7 @@ public class LoginResponse {
     @Builder.Default
     private String type = "Bearer";
     private Long expiresIn;
+    private String refreshToken;
+    private Long refreshExpiresIn;
     private UserDto user;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.banking.dto;
+
+import com.banking.entity.AccountPosting;
+import com.banking.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatementLineDto {
+    private LocalDateTime createdAt;
+    private String transactionRef;
+    private Transaction.TransactionType transactionType;
+    private AccountPosting.EntryType entryType;
+    private BigDecimal amount;
+    private String currency;
+    private String counterpartyAccountNumber;
+    private String description;
+    private Transaction.TransactionStatus status;
+}
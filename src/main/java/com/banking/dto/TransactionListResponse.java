@@ -14,4 +14,6 @@ import java.util.List;
 public class TransactionListResponse {
     private List<TransactionDto> transactions;
     private PaginationDto pagination;
+    // Set in cursor mode while more rows follow; pass back as ?cursor= for the next page
+    private String nextCursor;
 }
@@ -0,0 +1,19 @@
+package com.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSearchResponse {
+    // Best matches first
+    private List<UserDto> users;
+    // Set while more matches follow; pass back as ?cursor= for the next page
+    private String nextCursor;
+}
@@ -2,7 +2,6 @@ package com.banking.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -12,6 +11,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "accounts")
+@EntityListeners(AccountBalanceListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +20,8 @@ import java.util.Set;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_number", unique = true, nullable = false, length = 20)
@@ -47,7 +48,6 @@ public class Account {
     @Builder.Default
     private AccountStatus status = AccountStatus.ACTIVE;
 
-    @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -55,6 +55,15 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Set on persist() rather than at flush: with pooled ids the insert is deferred, and the
+    // response built right after save() reads this timestamp
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     @OneToMany(mappedBy = "sourceAccount")
     @Builder.Default
     private Set<Transaction> outgoingTransactions = new HashSet<>();
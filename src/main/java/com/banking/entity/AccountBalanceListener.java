@@ -0,0 +1,24 @@
+package com.banking.entity;
+
+import com.banking.service.BalanceCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds every JPA write of an {@link Account} into the {@link BalanceCache}, so all paths
+ * that call {@code credit}/{@code debit} keep it current without calling it themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountBalanceListener {
+
+    private final BalanceCache balanceCache;
+
+    @PostPersist
+    @PostUpdate
+    public void afterWrite(Account account) {
+        balanceCache.putOnCommit(account);
+    }
+}
@@ -0,0 +1,115 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One leg of a {@link Transaction} as seen from a single account. History queries
+ * read this table by {@code (account_id, created_at desc)} or {@code (user_id, created_at desc)}
+ * instead of OR-ing over the source and destination columns of {@code transactions}.
+ */
+@Entity
+@Table(name = "account_postings", indexes = {
+        @Index(name = "idx_account_postings_account_created",
+                columnList = "account_id, created_at DESC, transaction_id DESC")
+})
+@IdClass(AccountPosting.PostingId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountPosting implements Persistable<AccountPosting.PostingId> {
+
+    @Id
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Id
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", insertable = false, updatable = false)
+    private Transaction transaction;
+
+    // Null on the second leg of a transfer between two accounts of the same user
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "entry_type", nullable = false, length = 6)
+    @Enumerated(EnumType.STRING)
+    private EntryType entryType;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Postings are insert-only; skips the SELECT that merge() would issue for an assigned id
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    /**
+     * Builds the legs of a transaction that has already been persisted.
+     */
+    public static List<AccountPosting> legsOf(Transaction transaction) {
+        List<AccountPosting> legs = new ArrayList<>(2);
+        Long sourceUserId = null;
+        if (transaction.getSourceAccount() != null) {
+            sourceUserId = transaction.getSourceAccount().getUser().getId();
+            legs.add(leg(transaction, transaction.getSourceAccount(), EntryType.DEBIT, sourceUserId));
+        }
+        if (transaction.getDestinationAccount() != null) {
+            Long destinationUserId = transaction.getDestinationAccount().getUser().getId();
+            legs.add(leg(transaction, transaction.getDestinationAccount(), EntryType.CREDIT,
+                    destinationUserId.equals(sourceUserId) ? null : destinationUserId));
+        }
+        return legs;
+    }
+
+    private static AccountPosting leg(Transaction transaction, Account account, EntryType entryType, Long userId) {
+        return AccountPosting.builder()
+                .accountId(account.getId())
+                .transactionId(transaction.getId())
+                .transaction(transaction)
+                .userId(userId)
+                .entryType(entryType)
+                .createdAt(transaction.getCreatedAt())
+                .build();
+    }
+
+    @Override
+    public PostingId getId() {
+        return new PostingId(accountId, transactionId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public enum EntryType {
+        DEBIT,
+        CREDIT
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PostingId implements Serializable {
+        private Long accountId;
+        private Long transactionId;
+    }
+}
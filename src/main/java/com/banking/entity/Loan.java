@@ -2,7 +2,6 @@ package com.banking.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -23,7 +22,8 @@ import java.util.Set;
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loans_seq")
+    @SequenceGenerator(name = "loans_seq", sequenceName = "loans_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "loan_number", unique = true, nullable = false, length = 20)
@@ -61,10 +61,18 @@ public class Loan {
     @Builder.Default
     private LoanStatus status = LoanStatus.PENDING;
 
-    @CreationTimestamp
     @Column(name = "application_date", nullable = false, updatable = false)
     private LocalDateTime applicationDate;
 
+    // Set on persist() rather than at flush: with pooled ids the insert is deferred, and the
+    // response built right after save() reads this timestamp
+    @PrePersist
+    void onCreate() {
+        if (applicationDate == null) {
+            applicationDate = LocalDateTime.now();
+        }
+    }
+
     @Column(name = "approval_date")
     private LocalDateTime approvalDate;
 
@@ -84,10 +92,40 @@ public class Loan {
     @Column(columnDefinition = "TEXT")
     private String rejectionReason;
 
+    // First installment that is not fully paid; null for loans without a schedule
+    @Column(name = "next_installment")
+    private Integer nextInstallment;
+
+    // Running totals of completed repayments, updated together with each repayment
+    @Column(name = "total_repaid", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal totalRepaid = BigDecimal.ZERO;
+
+    @Column(name = "total_interest_paid", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal totalInterestPaid = BigDecimal.ZERO;
+
+    @Column(name = "last_payment_date")
+    private LocalDateTime lastPaymentDate;
+
+    @Column(name = "repayment_count", nullable = false)
+    @Builder.Default
+    private Integer repaymentCount = 0;
+
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy = "loan", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private Set<LoanRepayment> repayments = new HashSet<>();
 
+    public void recordRepayment(LoanRepayment repayment) {
+        this.totalRepaid = this.totalRepaid.add(repayment.getAmount());
+        this.totalInterestPaid = this.totalInterestPaid.add(repayment.getInterestAmount());
+        this.lastPaymentDate = repayment.getPaymentDate();
+        this.repaymentCount = this.repaymentCount + 1;
+    }
+
     public enum LoanType {
         PERSONAL,
         BUSINESS,
@@ -0,0 +1,101 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One month of a loan's amortization schedule, written when the loan is disbursed.
+ * Repayments fill {@code interestPaid} before {@code principalPaid}.
+ */
+@Entity
+@Table(name = "loan_installments")
+@IdClass(LoanInstallment.InstallmentId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanInstallment implements Persistable<LoanInstallment.InstallmentId> {
+
+    @Id
+    @Column(name = "loan_id", nullable = false)
+    private Long loanId;
+
+    @Id
+    @Column(name = "installment_number", nullable = false)
+    private Integer installmentNumber;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "principal_due", nullable = false, precision = 15, scale = 2)
+    private BigDecimal principalDue;
+
+    @Column(name = "interest_due", nullable = false, precision = 15, scale = 2)
+    private BigDecimal interestDue;
+
+    @Column(name = "principal_paid", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal principalPaid = BigDecimal.ZERO;
+
+    @Column(name = "interest_paid", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal interestPaid = BigDecimal.ZERO;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private InstallmentStatus status = InstallmentStatus.PENDING;
+
+    @Column(name = "paid_date")
+    private LocalDateTime paidDate;
+
+    // Schedules are written once; skips the SELECT that merge() would issue for an assigned id
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    public BigDecimal getInterestOutstanding() {
+        return interestDue.subtract(interestPaid);
+    }
+
+    public BigDecimal getPrincipalOutstanding() {
+        return principalDue.subtract(principalPaid);
+    }
+
+    @Override
+    public InstallmentId getId() {
+        return new InstallmentId(loanId, installmentNumber);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public enum InstallmentStatus {
+        PENDING,
+        PARTIALLY_PAID,
+        PAID
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InstallmentId implements Serializable {
+        private Long loanId;
+        private Integer installmentNumber;
+    }
+}
@@ -2,14 +2,13 @@ package com.banking.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "loan_repayments", indexes = {
-        @Index(name = "idx_loan_id", columnList = "loan_id")
+        @Index(name = "idx_loan_repayments_loan_date", columnList = "loan_id, payment_date DESC, id DESC")
 })
 @Getter
 @Setter
@@ -19,7 +18,8 @@ import java.time.LocalDateTime;
 public class LoanRepayment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_repayments_seq")
+    @SequenceGenerator(name = "loan_repayments_seq", sequenceName = "loan_repayments_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,10 +38,18 @@ public class LoanRepayment {
     @Column(name = "interest_amount", precision = 15, scale = 2)
     private BigDecimal interestAmount;
 
-    @CreationTimestamp
     @Column(name = "payment_date", nullable = false, updatable = false)
     private LocalDateTime paymentDate;
 
+    // Set on persist() rather than at flush: with pooled ids the insert is deferred, and the
+    // response built right after save() reads this timestamp
+    @PrePersist
+    void onCreate() {
+        if (paymentDate == null) {
+            paymentDate = LocalDateTime.now();
+        }
+    }
+
     @Column(name = "payment_method", length = 20)
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
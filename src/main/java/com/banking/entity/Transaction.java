@@ -2,7 +2,6 @@ package com.banking.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -21,7 +20,8 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "transaction_ref", unique = true, nullable = false, length = 50)
@@ -54,10 +54,18 @@ public class Transaction {
     @Builder.Default
     private TransactionStatus status = TransactionStatus.COMPLETED;
 
-    @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Set on persist() rather than at flush: with pooled ids the insert is deferred, and the
+    // response built right after save() reads this timestamp
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     public enum TransactionType {
         DEPOSIT,
         WITHDRAWAL,
@@ -2,7 +2,7 @@ package com.banking.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
@@ -20,7 +20,8 @@ import java.util.Set;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -48,7 +49,6 @@ public class User {
     @Builder.Default
     private Boolean isActive = true;
 
-    @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -56,7 +56,17 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Set on persist() rather than at flush: with pooled ids the insert is deferred, and the
+    // response built right after save() reads this timestamp
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Read paths resolve roles through RoleCatalog instead of loading this collection
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -75,7 +85,10 @@ public class User {
 
     public void addRole(Role role) {
         roles.add(role);
-        role.getUsers().add(this);
+        // Keep the inverse side only when loaded; initializing it would read every user of the role
+        if (Hibernate.isInitialized(role) && Hibernate.isInitialized(role.getUsers())) {
+            role.getUsers().add(this);
+        }
     }
 
     public void removeRole(Role role) {
@@ -1,11 +1,14 @@
 package com.banking.repository;
 
 import com.banking.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,9 +18,28 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByUserId(Long userId);
     boolean existsByAccountNumber(String accountNumber);
 
+    @Query("SELECT a FROM Account a JOIN FETCH a.user WHERE a.id = :id")
+    Optional<Account> findByIdWithUser(@Param("id") Long id);
+
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // Rows are locked in id order so concurrent transfers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT a FROM Account a WHERE a.user.id = :userId AND a.status = 'ACTIVE'")
     List<Account> findActiveAccountsByUserId(@Param("userId") Long userId);
 
+    // First serial of a block of account numbers reserved for this node (V6__account_number_blocks.sql)
+    @Query(value = "SELECT nextval('account_number_seq')", nativeQuery = true)
+    long reserveAccountNumberBlock();
+
+    @Query(value = "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() "
+            + "AND sequencename = 'account_number_seq'", nativeQuery = true)
+    long getAccountNumberBlockSize();
+
     @Query("SELECT COUNT(a) FROM Account a WHERE a.status = 'ACTIVE'")
     long countActiveAccounts();
 
@@ -0,0 +1,95 @@
+package com.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code dashboard_stats} summary table: one row per figure on the admin dashboard, plus
+ * the {@code dashboard_stat_deltas} journal of changes not yet folded into it.
+ * <p>
+ * Folding and reconciliation both lock the summary rows first, so they never interleave.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DashboardStatsRepository {
+
+    // Same expressions as the seed in V7__dashboard_stats.sql, evaluated in one statement. The
+    // journal rows deleted here are exactly those whose changes the scan's snapshot includes.
+    private static final String RECONCILE_SQL = """
+            WITH covered AS (DELETE FROM dashboard_stat_deltas)
+            UPDATE dashboard_stats s SET value = t.value, updated_at = CURRENT_TIMESTAMP
+            FROM (VALUES
+                ('totalUsers',     (SELECT COUNT(*) FROM users)::NUMERIC),
+                ('totalAccounts',  (SELECT COUNT(*) FROM accounts)::NUMERIC),
+                ('activeAccounts', (SELECT COUNT(*) FROM accounts WHERE status = 'ACTIVE')::NUMERIC),
+                ('totalDeposits',  (SELECT COALESCE(SUM(balance), 0) FROM accounts WHERE status = 'ACTIVE')),
+                ('pendingLoans',   (SELECT COUNT(*) FROM loans WHERE status = 'PENDING')::NUMERIC),
+                ('activeLoans',    (SELECT COUNT(*) FROM loans WHERE status = 'ACTIVE')::NUMERIC),
+                ('approvedLoans',  (SELECT COUNT(*) FROM loans WHERE status = 'APPROVED')::NUMERIC),
+                ('totalLoans',     (SELECT COALESCE(SUM(outstanding_balance), 0) FROM loans WHERE status = 'ACTIVE'))
+            ) AS t(stat_key, value)
+            WHERE s.stat_key = t.stat_key
+            """;
+
+    // Application-wide key of the advisory lock taken by lockJournal()
+    private static final long JOURNAL_LOCK_KEY = 7_417_001L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Current figures: the summary rows plus the journal, read in one snapshot
+    public Map<String, BigDecimal> findAll() {
+        Map<String, BigDecimal> values = new HashMap<>();
+        jdbcTemplate.query("SELECT s.stat_key, s.value + COALESCE(d.delta, 0) AS value FROM dashboard_stats s " +
+                        "LEFT JOIN (SELECT stat_key, SUM(delta) AS delta FROM dashboard_stat_deltas " +
+                        "GROUP BY stat_key) d ON d.stat_key = s.stat_key",
+                rs -> {
+                    values.put(rs.getString("stat_key"), rs.getBigDecimal("value"));
+                });
+        return values;
+    }
+
+    /**
+     * Journals deltas on the caller's transaction.
+     */
+    public void insertDeltas(Map<String, BigDecimal> deltas) {
+        List<Object[]> args = deltas.entrySet().stream()
+                .map(delta -> new Object[]{delta.getKey(), delta.getValue()})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO dashboard_stat_deltas (stat_key, delta) VALUES (?, ?)", args);
+    }
+
+    /**
+     * Moves the journal into the summary rows; call inside a transaction.
+     */
+    public int foldDeltas() {
+        lockJournal();
+        return jdbcTemplate.update("""
+                WITH folded AS (DELETE FROM dashboard_stat_deltas RETURNING stat_key, delta),
+                     totals AS (SELECT stat_key, SUM(delta) AS delta FROM folded GROUP BY stat_key)
+                UPDATE dashboard_stats s SET value = s.value + t.delta, updated_at = CURRENT_TIMESTAMP
+                FROM totals t
+                WHERE s.stat_key = t.stat_key
+                """);
+    }
+
+    /**
+     * Recomputes every figure from the source tables; call inside a transaction.
+     */
+    public int reconcile() {
+        lockJournal();
+        return jdbcTemplate.update(RECONCILE_SQL);
+    }
+
+    // Serializes folds and reconciles across nodes until the transaction ends. Not a row lock on
+    // dashboard_stats: every journal insert takes FOR KEY SHARE on its summary row for the foreign
+    // key, and FOR UPDATE would make each posting wait for a running fold or reconcile scan.
+    private void lockJournal() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, JOURNAL_LOCK_KEY);
+    }
+}
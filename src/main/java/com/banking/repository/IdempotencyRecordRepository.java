@@ -0,0 +1,57 @@
+package com.banking.repository;
+
+import com.banking.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.RecordId> {
+
+    /**
+     * Claims a key for a new request. Returns 1 when the caller owns the key
+     * (new row, or an expired one taken over) and 0 when someone else holds it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys " +
+            "(owner, idempotency_key, request_hash, status, created_at, expires_at) " +
+            "VALUES (:owner, :key, :requestHash, 'IN_PROGRESS', :now, :expiresAt) " +
+            "ON CONFLICT (owner, idempotency_key) DO UPDATE SET " +
+            "request_hash = EXCLUDED.request_hash, status = 'IN_PROGRESS', response_status = NULL, " +
+            "response_body = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < :now",
+            nativeQuery = true)
+    int claim(@Param("owner") String owner,
+              @Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseStatus = :responseStatus, " +
+            "r.responseBody = :responseBody WHERE r.owner = :owner AND r.idempotencyKey = :key")
+    int complete(@Param("owner") String owner,
+                 @Param("key") String key,
+                 @Param("status") IdempotencyRecord.RecordStatus status,
+                 @Param("responseStatus") Integer responseStatus,
+                 @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.owner = :owner AND r.idempotencyKey = :key AND r.status = :status")
+    int release(@Param("owner") String owner,
+                @Param("key") String key,
+                @Param("status") IdempotencyRecord.RecordStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
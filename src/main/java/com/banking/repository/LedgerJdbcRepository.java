@@ -0,0 +1,298 @@
+package com.banking.repository;
+
+import com.banking.dto.StatementLineDto;
+import com.banking.entity.Account;
+import com.banking.entity.AccountPosting;
+import com.banking.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to the ledger tables for write paths that post many rows at once.
+ * Balance updates are version-checked so they stay safe against the JPA write paths.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerJdbcRepository {
+
+    // Must match the allocationSize of the entity sequence generators
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String TRANSACTION_SEQUENCE = "transactions_seq";
+
+    private static final String ACCOUNT_SNAPSHOT_COLUMNS =
+            "SELECT a.id, a.account_number, u.email, a.status, a.currency, a.balance, a.version " +
+                    "FROM accounts a JOIN users u ON u.id = a.user_id ";
+
+    private static final RowMapper<AccountSnapshot> ACCOUNT_SNAPSHOT_MAPPER = (rs, rowNum) -> new AccountSnapshot(
+            rs.getLong("id"),
+            rs.getString("account_number"),
+            rs.getString("email"),
+            Account.AccountStatus.valueOf(rs.getString("status")),
+            rs.getString("currency"),
+            rs.getBigDecimal("balance"),
+            rs.getLong("version")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public Optional<AccountSnapshot> findAccountSnapshot(Long accountId) {
+        List<AccountSnapshot> rows = jdbcTemplate.query(
+                ACCOUNT_SNAPSHOT_COLUMNS + "WHERE a.id = ?", ACCOUNT_SNAPSHOT_MAPPER, accountId);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Loads and row-locks every account matching either an id or an account number in one
+     * statement. Locks are taken in id order, so concurrent batches cannot deadlock on each other.
+     */
+    public List<AccountSnapshot> lockAccounts(Collection<Long> accountIds, Collection<String> accountNumbers) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", accountIds)
+                .addValue("numbers", accountNumbers);
+        return namedParameterJdbcTemplate.query(
+                ACCOUNT_SNAPSHOT_COLUMNS + "WHERE a.id IN (:ids) OR a.account_number IN (:numbers) " +
+                        "ORDER BY a.id FOR UPDATE OF a",
+                params,
+                ACCOUNT_SNAPSHOT_MAPPER);
+    }
+
+    /**
+     * Loads and row-locks the given accounts in id order, like {@link #lockAccounts} without
+     * the account number lookup.
+     */
+    public List<AccountSnapshot> lockAccountsById(Collection<Long> accountIds) {
+        return namedParameterJdbcTemplate.query(
+                ACCOUNT_SNAPSHOT_COLUMNS + "WHERE a.id IN (:ids) ORDER BY a.id FOR UPDATE OF a",
+                new MapSqlParameterSource("ids", accountIds),
+                ACCOUNT_SNAPSHOT_MAPPER);
+    }
+
+    /**
+     * Bounds how long row locks taken later in the current transaction may wait.
+     */
+    public void setLocalLockTimeout(long timeoutMs) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + timeoutMs);
+    }
+
+    /**
+     * Streams the postings of one account in chronological order through a forward-only
+     * server-side cursor. Must run inside a transaction, otherwise the driver buffers the
+     * whole result. Rows are handed to the consumer one at a time and not retained.
+     */
+    public void streamStatement(Long accountId, LocalDateTime from, LocalDateTime to, int fetchSize,
+                                Consumer<StatementLineDto> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT p.created_at, t.transaction_ref, t.transaction_type, p.entry_type, t.amount, " +
+                            "t.currency, c.account_number AS counterparty, t.description, t.status " +
+                            "FROM account_postings p " +
+                            "JOIN transactions t ON t.id = p.transaction_id " +
+                            "LEFT JOIN accounts c ON c.id = CASE WHEN p.entry_type = 'DEBIT' " +
+                            "THEN t.destination_account_id ELSE t.source_account_id END " +
+                            "WHERE p.account_id = ? AND p.created_at >= ? AND p.created_at <= ? " +
+                            "ORDER BY p.created_at, p.transaction_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, accountId);
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(StatementLineDto.builder()
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .transactionRef(rs.getString("transaction_ref"))
+                .transactionType(Transaction.TransactionType.valueOf(rs.getString("transaction_type")))
+                .entryType(AccountPosting.EntryType.valueOf(rs.getString("entry_type")))
+                .amount(rs.getBigDecimal("amount"))
+                .currency(rs.getString("currency"))
+                .counterpartyAccountNumber(rs.getString("counterparty"))
+                .description(rs.getString("description"))
+                .status(Transaction.TransactionStatus.valueOf(rs.getString("status")))
+                .build()));
+    }
+
+    public Optional<Long> findAccountIdByNumber(String accountNumber) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM accounts WHERE account_number = ?", Long.class, accountNumber);
+        return ids.stream().findFirst();
+    }
+
+    public void insertTransactions(List<TransactionRow> rows) {
+        long[] ids = allocateIds(TRANSACTION_SEQUENCE, rows.size());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (id, transaction_ref, source_account_id, destination_account_id, " +
+                        "transaction_type, amount, currency, description, status, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        TransactionRow row = rows.get(i);
+                        ps.setLong(1, ids[i]);
+                        ps.setString(2, row.transactionRef());
+                        ps.setObject(3, row.sourceAccountId(), Types.BIGINT);
+                        ps.setObject(4, row.destinationAccountId(), Types.BIGINT);
+                        ps.setString(5, row.transactionType().name());
+                        ps.setBigDecimal(6, row.amount());
+                        ps.setString(7, row.currency());
+                        ps.setString(8, row.description());
+                        ps.setString(9, row.status().name());
+                        ps.setTimestamp(10, Timestamp.valueOf(row.createdAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+        insertPostings(ids);
+    }
+
+    /**
+     * Writes the account_postings legs of the given transactions in one set-based statement,
+     * with the same ownership rules as {@link com.banking.entity.AccountPosting#legsOf}.
+     */
+    private void insertPostings(long[] transactionIds) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO account_postings (account_id, transaction_id, user_id, entry_type, created_at) " +
+                            "SELECT t.source_account_id, t.id, s.user_id, 'DEBIT', t.created_at " +
+                            "FROM transactions t JOIN accounts s ON s.id = t.source_account_id " +
+                            "WHERE t.id = ANY (?) " +
+                            "UNION ALL " +
+                            "SELECT t.destination_account_id, t.id, " +
+                            "CASE WHEN s.user_id = d.user_id THEN NULL ELSE d.user_id END, 'CREDIT', t.created_at " +
+                            "FROM transactions t JOIN accounts d ON d.id = t.destination_account_id " +
+                            "LEFT JOIN accounts s ON s.id = t.source_account_id " +
+                            "WHERE t.id = ANY (?)");
+            Array ids = connection.createArrayOf("bigint", Arrays.stream(transactionIds).boxed().toArray());
+            ps.setArray(1, ids);
+            ps.setArray(2, ids);
+            return ps;
+        });
+    }
+
+    /**
+     * Reserves ids the same way Hibernate's pooled optimizer does: every nextval() is the
+     * top of a block of {@link #ID_BLOCK_SIZE} ids, so one round trip covers a whole batch.
+     */
+    public long[] allocateIds(String sequenceName, int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> highs = jdbcTemplate.queryForList(
+                "SELECT nextval('" + sequenceName + "') FROM generate_series(1, ?)", Long.class, blocks);
+
+        long[] ids = new long[count];
+        int next = 0;
+        for (Long high : highs) {
+            for (long id = high - ID_BLOCK_SIZE + 1; id <= high && next < count; id++) {
+                ids[next++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Writes absolute balances, each guarded by the version the caller read.
+     * Returns the number of rows that did not match their expected version.
+     */
+    public int updateBalances(List<BalanceUpdate> updates) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "UPDATE accounts SET balance = ?, version = ?, updated_at = ? " +
+                        "WHERE id = ? AND COALESCE(version, 0) = ?",
+                updates,
+                updates.size(),
+                (ps, update) -> {
+                    ps.setBigDecimal(1, update.balance());
+                    ps.setLong(2, update.expectedVersion() + 1);
+                    ps.setTimestamp(3, now);
+                    ps.setLong(4, update.accountId());
+                    ps.setLong(5, update.expectedVersion());
+                });
+
+        int stale = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    stale++;
+                }
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Adds each amount to its account's balance in one set-based statement, after row-locking
+     * the accounts in id order. The write is relative, so it never overwrites a concurrent
+     * posting; it still bumps the version, so a writer holding an older read retries instead
+     * of writing a balance without the credit. Returns the version written for each account.
+     */
+    public Map<Long, Long> creditBalances(long[] accountIds, BigDecimal[] amounts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Long> versions = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "WITH locked AS (SELECT id FROM accounts WHERE id = ANY (?) ORDER BY id FOR UPDATE) " +
+                            "UPDATE accounts a SET balance = a.balance + c.amount, " +
+                            "version = COALESCE(a.version, 0) + 1, updated_at = ? " +
+                            "FROM unnest(?, ?) AS c (id, amount) " +
+                            "WHERE a.id = c.id AND a.id IN (SELECT id FROM locked) " +
+                            "RETURNING a.id, a.version");
+            Array ids = connection.createArrayOf("bigint", Arrays.stream(accountIds).boxed().toArray());
+            ps.setArray(1, ids);
+            ps.setTimestamp(2, now);
+            ps.setArray(3, ids);
+            ps.setArray(4, connection.createArrayOf("numeric", amounts));
+            return ps;
+        }, (RowCallbackHandler) rs -> versions.put(rs.getLong("id"), rs.getLong("version")));
+        return versions;
+    }
+
+    public record AccountSnapshot(Long id,
+                                  String accountNumber,
+                                  String ownerEmail,
+                                  Account.AccountStatus status,
+                                  String currency,
+                                  BigDecimal balance,
+                                  long version) {
+    }
+
+    public record BalanceUpdate(Long accountId, BigDecimal balance, long expectedVersion) {
+
+        public long writtenVersion() {
+            return expectedVersion + 1;
+        }
+    }
+
+    public record TransactionRow(String transactionRef,
+                                 Long sourceAccountId,
+                                 Long destinationAccountId,
+                                 Transaction.TransactionType transactionType,
+                                 BigDecimal amount,
+                                 String currency,
+                                 String description,
+                                 Transaction.TransactionStatus status,
+                                 LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The daily interest accrual tables, {@code loan_interest_accruals} and their per-date
+ * checkpoints in {@code loan_accrual_runs}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LoanAccrualJdbcRepository {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void startRun(LocalDate accrualDate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO loan_accrual_runs (accrual_date, status, started_at, updated_at) " +
+                "VALUES (?, ?, ?, ?) ON CONFLICT (accrual_date) DO NOTHING", Date.valueOf(accrualDate), RUNNING, now, now);
+    }
+
+    public List<LocalDate> findIncompleteRuns() {
+        return jdbcTemplate.query("SELECT accrual_date FROM loan_accrual_runs WHERE status = ? ORDER BY accrual_date",
+                (rs, rowNum) -> rs.getDate("accrual_date").toLocalDate(), RUNNING);
+    }
+
+    /**
+     * Row-locks the checkpoint of a run until the current transaction ends, so chunks of one
+     * date are processed one at a time even when several nodes run the job.
+     */
+    public Optional<Checkpoint> lockRun(LocalDate accrualDate) {
+        List<Checkpoint> rows = jdbcTemplate.query(
+                "SELECT status, last_loan_id FROM loan_accrual_runs WHERE accrual_date = ? FOR UPDATE",
+                (rs, rowNum) -> new Checkpoint(COMPLETED.equals(rs.getString("status")), rs.getLong("last_loan_id")),
+                Date.valueOf(accrualDate));
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * The next {@code limit} loans after {@code afterLoanId} that were active and disbursed by
+     * the end of {@code accrualDate}, as balances in cents and rates in basis points.
+     */
+    public List<ActiveLoan> findActiveLoansAfter(long afterLoanId, LocalDate accrualDate, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT id, (outstanding_balance * 100)::BIGINT AS balance_cents,
+                               (interest_rate * 100)::BIGINT AS rate_basis_points
+                        FROM loans
+                        WHERE status = 'ACTIVE' AND id > ? AND disbursement_date < ?
+                        ORDER BY id
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> new ActiveLoan(rs.getLong("id"), rs.getLong("balance_cents"), rs.getLong("rate_basis_points")),
+                afterLoanId, Timestamp.valueOf(accrualDate.plusDays(1).atStartOfDay()), limit);
+    }
+
+    public void insertAccruals(LocalDate accrualDate, List<ActiveLoan> loans, long[] amountMicros) {
+        Date date = Date.valueOf(accrualDate);
+        jdbcTemplate.batchUpdate("INSERT INTO loan_interest_accruals " +
+                        "(accrual_date, loan_id, balance, interest_rate, amount) VALUES (?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (accrual_date, loan_id) DO NOTHING",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ActiveLoan loan = loans.get(i);
+                        ps.setDate(1, date);
+                        ps.setLong(2, loan.id());
+                        ps.setBigDecimal(3, BigDecimal.valueOf(loan.balanceCents(), 2));
+                        ps.setBigDecimal(4, BigDecimal.valueOf(loan.rateBasisPoints(), 2));
+                        ps.setBigDecimal(5, BigDecimal.valueOf(amountMicros[i], 6));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return loans.size();
+                    }
+                });
+    }
+
+    public void advanceRun(LocalDate accrualDate, long lastLoanId, int loans, long interestMicros, boolean completed) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("UPDATE loan_accrual_runs SET last_loan_id = ?, loans_processed = loans_processed + ?, " +
+                        "interest_accrued = interest_accrued + ?, status = ?, updated_at = ?, finished_at = ? " +
+                        "WHERE accrual_date = ?",
+                lastLoanId, loans, BigDecimal.valueOf(interestMicros, 6), completed ? COMPLETED : RUNNING,
+                now, completed ? now : null, Date.valueOf(accrualDate));
+    }
+
+    public record Checkpoint(boolean completed, long lastLoanId) {
+    }
+
+    public record ActiveLoan(long id, long balanceCents, long rateBasisPoints) {
+    }
+}
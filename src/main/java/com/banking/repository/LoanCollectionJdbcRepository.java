@@ -0,0 +1,338 @@
+package com.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Auto-debit collection of due loan installments: the per-partition checkpoints in
+ * {@code loan_collection_runs}, the retry queue in {@code loan_collection_retries}, and the
+ * set-based writes that settle collected loans.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LoanCollectionJdbcRepository {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+
+    private static final String REPAYMENT_SEQUENCE = "loan_repayments_seq";
+
+    // Row-locks the selected loans whose next open installment is due, then totals what is
+    // outstanding on every installment due by the collection date
+    private static final String DUE_LOANS = """
+            WITH due AS (
+                SELECT l.id, l.loan_number, l.account_id, l.next_installment, l.outstanding_balance
+                FROM loans l
+                WHERE l.status = 'ACTIVE' AND l.next_installment IS NOT NULL AND l.account_id IS NOT NULL
+                  AND %s
+                  AND EXISTS (SELECT 1 FROM loan_installments i
+                              WHERE i.loan_id = l.id AND i.installment_number = l.next_installment
+                                AND i.due_date <= :dueDate)
+                ORDER BY l.id
+                %s
+                FOR UPDATE
+            )
+            SELECT d.id, d.loan_number, d.account_id, d.outstanding_balance,
+                   MAX(i.installment_number) AS last_installment,
+                   SUM(i.principal_due - i.principal_paid) AS principal,
+                   SUM(i.interest_due - i.interest_paid) AS interest
+            FROM due d
+                     JOIN loan_installments i ON i.loan_id = d.id AND i.installment_number >= d.next_installment
+                                                 AND i.due_date <= :dueDate
+            GROUP BY d.id, d.loan_number, d.account_id, d.outstanding_balance
+            ORDER BY d.id
+            """;
+
+    private static final String NOT_QUEUED = """
+            NOT EXISTS (SELECT 1 FROM loan_collection_retries r
+                        WHERE r.loan_id = l.id
+                          AND (r.status = 'PENDING'
+                               OR NOT EXISTS (SELECT 1 FROM loan_installments n
+                                              WHERE n.loan_id = l.id AND n.installment_number >= l.next_installment
+                                                AND n.due_date > CAST(r.updated_at AS DATE)
+                                                AND n.due_date <= :dueDate)))
+            """;
+
+    private static final RowMapper<DueLoan> DUE_LOAN_MAPPER = (rs, rowNum) -> new DueLoan(
+            rs.getLong("id"),
+            rs.getString("loan_number"),
+            rs.getLong("account_id"),
+            rs.getBigDecimal("outstanding_balance"),
+            rs.getInt("last_installment"),
+            rs.getBigDecimal("principal"),
+            rs.getBigDecimal("interest")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final LedgerJdbcRepository ledgerRepository;
+
+    public void startRun(LocalDate collectionDate, int partitions) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO loan_collection_runs " +
+                        "(collection_date, partition_no, partitions, status, started_at, updated_at) " +
+                        "SELECT CAST(? AS DATE), g, ?, ?, CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP) " +
+                        "FROM generate_series(0, ? - 1) g " +
+                        "ON CONFLICT (collection_date, partition_no) DO NOTHING",
+                Date.valueOf(collectionDate), partitions, RUNNING, now, now, partitions);
+    }
+
+    public List<LocalDate> findIncompleteRuns() {
+        return jdbcTemplate.query("SELECT DISTINCT collection_date FROM loan_collection_runs WHERE status = ? " +
+                        "ORDER BY collection_date",
+                (rs, rowNum) -> rs.getDate("collection_date").toLocalDate(), RUNNING);
+    }
+
+    /**
+     * Row-locks one unfinished partition of the date that no other transaction holds, until
+     * the current transaction ends. Empty once every partition is finished or taken.
+     */
+    public Optional<Partition> claimPartition(LocalDate collectionDate) {
+        List<Partition> rows = jdbcTemplate.query(
+                "SELECT partition_no, partitions, last_loan_id FROM loan_collection_runs " +
+                        "WHERE collection_date = ? AND status = ? ORDER BY partition_no LIMIT 1 FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new Partition(rs.getInt("partition_no"), rs.getInt("partitions"),
+                        rs.getLong("last_loan_id")),
+                Date.valueOf(collectionDate), RUNNING);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Locks the next {@code limit} due loans of a partition after its checkpoint. The partition
+     * count is the one the run started with, so a changed setting cannot skip loans on resume.
+     * Loans with a pending retry are left to {@code retryDeferred}, which owns their attempts.
+     * A loan given up on (EXHAUSTED) is skipped until an open installment falls due after its
+     * last attempt, whether a new month came due or the customer paid the old ones.
+     */
+    public List<DueLoan> lockDueLoans(Partition partition, LocalDate dueDate, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterLoanId", partition.lastLoanId())
+                .addValue("partitions", partition.partitions())
+                .addValue("partitionNo", partition.partitionNo())
+                .addValue("dueDate", Date.valueOf(dueDate))
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query(
+                DUE_LOANS.formatted("l.id > :afterLoanId AND l.account_id % :partitions = :partitionNo " +
+                        "AND " + NOT_QUEUED, "LIMIT :limit"),
+                params, DUE_LOAN_MAPPER);
+    }
+
+    /**
+     * Locks those of the given loans that still have something due.
+     */
+    public List<DueLoan> lockDueLoans(Collection<Long> loanIds, LocalDate dueDate) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("loanIds", loanIds)
+                .addValue("dueDate", Date.valueOf(dueDate));
+        return namedParameterJdbcTemplate.query(DUE_LOANS.formatted("l.id IN (:loanIds)", ""), params, DUE_LOAN_MAPPER);
+    }
+
+    /**
+     * Loan ids of up to {@code limit} pending retries that are due, after {@code afterLoanId} in
+     * id order. Nothing is locked: callers lock the loans first, then {@link #lockDueRetries}.
+     */
+    public List<Long> findDueRetries(LocalDateTime now, long afterLoanId, int limit) {
+        return jdbcTemplate.queryForList("SELECT loan_id FROM loan_collection_retries " +
+                        "WHERE status = 'PENDING' AND next_attempt_at <= ? AND loan_id > ? " +
+                        "ORDER BY loan_id LIMIT ?",
+                Long.class, Timestamp.valueOf(now), afterLoanId, limit);
+    }
+
+    /**
+     * Row-locks those of the given loans that no other transaction holds, in id order.
+     */
+    public List<Long> lockLoans(Collection<Long> loanIds) {
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT id FROM loans WHERE id IN (:loanIds) ORDER BY id FOR UPDATE SKIP LOCKED",
+                new MapSqlParameterSource("loanIds", loanIds), Long.class);
+    }
+
+    /**
+     * Row-locks the retries of the given, already locked, loans that are still pending and due.
+     * Read after the loan locks, so a retry another node has just worked is left out.
+     */
+    public List<Long> lockDueRetries(Collection<Long> loanIds, LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("loanIds", loanIds)
+                .addValue("now", Timestamp.valueOf(now));
+        return namedParameterJdbcTemplate.queryForList("SELECT loan_id FROM loan_collection_retries " +
+                        "WHERE loan_id IN (:loanIds) AND status = 'PENDING' AND next_attempt_at <= :now " +
+                        "ORDER BY loan_id FOR UPDATE",
+                params, Long.class);
+    }
+
+    /**
+     * Marks every installment of the given loans that is due by {@code dueDate} as paid in full.
+     * Must run before {@link #updateLoans}, which moves the loans' next-installment pointers.
+     */
+    public void settleInstallments(long[] loanIds, LocalDate dueDate, LocalDateTime paidAt) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE loan_installments i SET principal_paid = i.principal_due, interest_paid = i.interest_due, " +
+                            "status = 'PAID', paid_date = ? " +
+                            "FROM loans l WHERE l.id = i.loan_id AND l.id = ANY (?) " +
+                            "AND i.installment_number >= l.next_installment AND i.due_date <= ?");
+            ps.setTimestamp(1, Timestamp.valueOf(paidAt));
+            ps.setArray(2, connection.createArrayOf("bigint", Arrays.stream(loanIds).boxed().toArray()));
+            ps.setDate(3, Date.valueOf(dueDate));
+            return ps;
+        });
+    }
+
+    /**
+     * Applies collected principal to the loans in one statement, adds the repayment to their
+     * running totals, advances their pointers and closes those that are paid off. The version
+     * is bumped so a customer repayment that read the loan earlier retries.
+     */
+    public void updateLoans(List<CollectedLoan> loans, LocalDateTime paidAt) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE loans l SET outstanding_balance = l.outstanding_balance - c.principal, " +
+                            "total_repaid = l.total_repaid + c.principal + c.interest, " +
+                            "total_interest_paid = l.total_interest_paid + c.interest, " +
+                            "last_payment_date = ?, repayment_count = l.repayment_count + 1, " +
+                            "next_installment = c.next_installment, version = l.version + 1, " +
+                            "status = CASE WHEN l.outstanding_balance - c.principal = 0 THEN 'CLOSED' ELSE l.status END " +
+                            "FROM unnest(?, ?, ?, ?) AS c (id, principal, interest, next_installment) WHERE l.id = c.id");
+            ps.setTimestamp(1, Timestamp.valueOf(paidAt));
+            ps.setArray(2, connection.createArrayOf("bigint", loans.stream().map(CollectedLoan::loanId).toArray()));
+            ps.setArray(3, connection.createArrayOf("numeric", loans.stream().map(CollectedLoan::principal).toArray()));
+            ps.setArray(4, connection.createArrayOf("numeric", loans.stream().map(CollectedLoan::interest).toArray()));
+            ps.setArray(5, connection.createArrayOf("integer", loans.stream().map(CollectedLoan::nextInstallment).toArray()));
+            return ps;
+        });
+    }
+
+    public void insertRepayments(List<RepaymentRow> rows) {
+        long[] ids = ledgerRepository.allocateIds(REPAYMENT_SEQUENCE, rows.size());
+        jdbcTemplate.batchUpdate("INSERT INTO loan_repayments (id, loan_id, payment_ref, amount, principal_amount, " +
+                        "interest_amount, payment_date, payment_method, status) VALUES (?, ?, ?, ?, ?, ?, ?, 'DEBIT', 'COMPLETED')",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        RepaymentRow row = rows.get(i);
+                        ps.setLong(1, ids[i]);
+                        ps.setLong(2, row.loanId());
+                        ps.setString(3, row.paymentRef());
+                        ps.setBigDecimal(4, row.principal().add(row.interest()));
+                        ps.setBigDecimal(5, row.principal());
+                        ps.setBigDecimal(6, row.interest());
+                        ps.setTimestamp(7, Timestamp.valueOf(row.paymentDate()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+    }
+
+    /**
+     * Queues loans that could not be collected, or counts another failed attempt for those
+     * already queued. A loan is given up on (EXHAUSTED) after {@code maxAttempts} attempts; one
+     * deferred again after that starts a new round of attempts from the new due date.
+     */
+    public void enqueueRetries(List<DeferredLoan> loans, LocalDate dueDate, LocalDateTime nextAttemptAt, int maxAttempts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO loan_collection_retries (loan_id, first_due_date, amount_due, attempts, " +
+                        "status, last_error, next_attempt_at, created_at, updated_at) VALUES (?, ?, ?, 1, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (loan_id) DO UPDATE SET amount_due = EXCLUDED.amount_due, " +
+                        "first_due_date = CASE WHEN loan_collection_retries.status = 'EXHAUSTED' " +
+                        "THEN EXCLUDED.first_due_date ELSE loan_collection_retries.first_due_date END, " +
+                        "attempts = CASE WHEN loan_collection_retries.status = 'EXHAUSTED' " +
+                        "THEN 1 ELSE loan_collection_retries.attempts + 1 END, " +
+                        "status = CASE WHEN loan_collection_retries.status <> 'EXHAUSTED' " +
+                        "AND loan_collection_retries.attempts + 1 >= ? THEN 'EXHAUSTED' " +
+                        "WHEN loan_collection_retries.status = 'EXHAUSTED' AND ? <= 1 THEN 'EXHAUSTED' ELSE 'PENDING' END, " +
+                        "last_error = EXCLUDED.last_error, next_attempt_at = EXCLUDED.next_attempt_at, " +
+                        "updated_at = EXCLUDED.updated_at",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        DeferredLoan loan = loans.get(i);
+                        ps.setLong(1, loan.loanId());
+                        ps.setDate(2, Date.valueOf(dueDate));
+                        ps.setBigDecimal(3, loan.amountDue());
+                        ps.setString(4, maxAttempts > 1 ? "PENDING" : "EXHAUSTED");
+                        ps.setString(5, loan.reason());
+                        ps.setTimestamp(6, Timestamp.valueOf(nextAttemptAt));
+                        ps.setTimestamp(7, now);
+                        ps.setTimestamp(8, now);
+                        ps.setInt(9, maxAttempts);
+                        ps.setInt(10, maxAttempts);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return loans.size();
+                    }
+                });
+    }
+
+    /**
+     * Drops the given loans from the retry queue, once collected or no longer due.
+     */
+    public void removeRetries(long[] loanIds) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("DELETE FROM loan_collection_retries WHERE loan_id = ANY (?)");
+            Array ids = connection.createArrayOf("bigint", Arrays.stream(loanIds).boxed().toArray());
+            ps.setArray(1, ids);
+            return ps;
+        });
+    }
+
+    public void advancePartition(LocalDate collectionDate, int partitionNo, long lastLoanId,
+                                 int collected, BigDecimal amount, int deferred, boolean completed) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("UPDATE loan_collection_runs SET last_loan_id = ?, " +
+                        "loans_collected = loans_collected + ?, amount_collected = amount_collected + ?, " +
+                        "loans_deferred = loans_deferred + ?, status = ?, updated_at = ?, finished_at = ? " +
+                        "WHERE collection_date = ? AND partition_no = ?",
+                lastLoanId, collected, amount, deferred, completed ? COMPLETED : RUNNING,
+                now, completed ? now : null, Date.valueOf(collectionDate), partitionNo);
+    }
+
+    public record Partition(int partitionNo, int partitions, long lastLoanId) {
+    }
+
+    public record DueLoan(long loanId,
+                          String loanNumber,
+                          long accountId,
+                          BigDecimal outstandingBalance,
+                          int lastInstallment,
+                          BigDecimal principal,
+                          BigDecimal interest) {
+
+        public BigDecimal amount() {
+            return principal.add(interest);
+        }
+    }
+
+    public record CollectedLoan(long loanId, BigDecimal principal, BigDecimal interest, int nextInstallment) {
+    }
+
+    public record RepaymentRow(long loanId, String paymentRef, BigDecimal principal, BigDecimal interest,
+                               LocalDateTime paymentDate) {
+    }
+
+    public record DeferredLoan(long loanId, BigDecimal amountDue, String reason) {
+    }
+}
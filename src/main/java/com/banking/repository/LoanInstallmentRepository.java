@@ -0,0 +1,12 @@
+package com.banking.repository;
+
+import com.banking.entity.LoanInstallment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment, LoanInstallment.InstallmentId> {
+    List<LoanInstallment> findByLoanIdOrderByInstallmentNumber(Long loanId);
+}
@@ -1,20 +1,32 @@
 package com.banking.repository;
 
 import com.banking.entity.LoanRepayment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface LoanRepaymentRepository extends JpaRepository<LoanRepayment, Long> {
     List<LoanRepayment> findByLoanIdOrderByPaymentDateDesc(Long loanId);
 
-    @Query("SELECT lr FROM LoanRepayment lr WHERE lr.loan.id = :loanId ORDER BY lr.paymentDate DESC")
-    List<LoanRepayment> findRepaymentsForLoan(@Param("loanId") Long loanId);
-
-    @Query("SELECT SUM(lr.amount) FROM LoanRepayment lr WHERE lr.loan.id = :loanId AND lr.status = 'COMPLETED'")
-    java.math.BigDecimal getTotalRepaidAmount(@Param("loanId") Long loanId);
+    /**
+     * Keyset page of a loan's repayments, newest first, strictly after
+     * {@code (beforePaymentDate, beforeId)}.
+     */
+    @Query("SELECT lr FROM LoanRepayment lr " +
+            "WHERE lr.loan.id = :loanId " +
+            "AND lr.paymentDate <= :beforePaymentDate " +
+            "AND (lr.paymentDate < :beforePaymentDate OR lr.id < :beforeId) " +
+            "ORDER BY lr.paymentDate DESC, lr.id DESC")
+    List<LoanRepayment> findPageForLoan(
+            @Param("loanId") Long loanId,
+            @Param("beforePaymentDate") LocalDateTime beforePaymentDate,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
 }
\ No newline at end of file
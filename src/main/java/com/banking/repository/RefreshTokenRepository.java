@@ -0,0 +1,34 @@
+package com.banking.repository;
+
+import com.banking.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    /**
+     * Marks a live token as used. Returns 0 when it was already rotated or revoked,
+     * which is how concurrent or repeated use of one token is detected across nodes.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.rotatedAt = :now " +
+            "WHERE t.tokenHash = :tokenHash AND t.rotatedAt IS NULL AND t.revokedAt IS NULL")
+    int markRotated(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
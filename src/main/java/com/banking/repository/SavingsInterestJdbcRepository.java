@@ -0,0 +1,170 @@
+package com.banking.repository;
+
+import com.banking.entity.Account;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The monthly savings interest tables, {@code savings_interest_postings} and the per-range
+ * checkpoints of each period in {@code savings_interest_runs}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SavingsInterestJdbcRepository {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+
+    // Accounts that earn interest: not closed, and opened before the end of the period
+    private static final String INTEREST_BEARING =
+            "account_type IN ('SAVINGS', 'FIXED_DEPOSIT') AND status <> 'CLOSED' AND created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Splits the id range of the period's interest-bearing accounts into {@code partitions}
+     * equal ranges, unless the period already has them. The split and the insert are a single
+     * statement, so nodes starting the same period at once end up with the same ranges.
+     */
+    public void startRun(LocalDate periodStart, LocalDate periodEnd, int partitions) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("""
+                        INSERT INTO savings_interest_runs
+                            (period_start, partition_no, range_end, last_account_id, status, started_at, updated_at)
+                        SELECT CAST(? AS DATE), g, LEAST(b.hi, b.lo - 1 + (g + 1) * b.span), b.lo - 1 + g * b.span, ?,
+                               CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)
+                        FROM (SELECT MIN(id) AS lo, MAX(id) AS hi, (MAX(id) - MIN(id)) / ? + 1 AS span
+                              FROM accounts WHERE %s) b,
+                             generate_series(0, ? - 1) g
+                        WHERE b.lo IS NOT NULL AND b.lo - 1 + g * b.span < b.hi
+                        ON CONFLICT (period_start, partition_no) DO NOTHING
+                        """.formatted(INTEREST_BEARING),
+                Date.valueOf(periodStart), RUNNING, now, now, partitions,
+                Timestamp.valueOf(periodEnd.atStartOfDay()), partitions);
+    }
+
+    public List<LocalDate> findIncompletePeriods() {
+        return jdbcTemplate.query("SELECT DISTINCT period_start FROM savings_interest_runs WHERE status = ? " +
+                        "ORDER BY period_start",
+                (rs, rowNum) -> rs.getDate("period_start").toLocalDate(), RUNNING);
+    }
+
+    /**
+     * Row-locks one unfinished range of the period that no other transaction holds, until the
+     * current transaction ends. Empty once every range is finished or taken.
+     */
+    public Optional<Partition> claimPartition(LocalDate periodStart) {
+        List<Partition> rows = jdbcTemplate.query(
+                "SELECT partition_no, last_account_id, range_end FROM savings_interest_runs " +
+                        "WHERE period_start = ? AND status = ? ORDER BY partition_no LIMIT 1 FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new Partition(rs.getInt("partition_no"), rs.getLong("last_account_id"),
+                        rs.getLong("range_end")),
+                Date.valueOf(periodStart), RUNNING);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * The next {@code limit} interest-bearing accounts of a range after its checkpoint,
+     * each with the sum of its end-of-day balances over [{@code periodStart}, {@code periodEnd}).
+     * <p>
+     * The sum is derived from the ledger in one statement, so it sees a single snapshot of the
+     * balance and the postings: the closing balance is the current balance less everything
+     * posted since the period ended, and each posting inside the period is backed out of the
+     * days before it.
+     */
+    public List<InterestBearingAccount> findInterestBearingAccounts(Partition partition,
+                                                                    LocalDate periodStart,
+                                                                    LocalDate periodEnd,
+                                                                    int limit) {
+        Date start = Date.valueOf(periodStart);
+        Timestamp startTime = Timestamp.valueOf(periodStart.atStartOfDay());
+        Timestamp endTime = Timestamp.valueOf(periodEnd.atStartOfDay());
+        long days = periodEnd.toEpochDay() - periodStart.toEpochDay();
+        return jdbcTemplate.query("""
+                        WITH chunk AS (
+                            SELECT id, account_type, currency, balance
+                            FROM accounts
+                            WHERE id > ? AND id <= ? AND %s
+                            ORDER BY id
+                            LIMIT ?
+                        )
+                        SELECT c.id, c.account_type, c.currency,
+                               ? * (c.balance - COALESCE(SUM(l.amount) FILTER (WHERE l.created_at >= ?), 0))
+                                   - COALESCE(SUM(l.amount * (CAST(l.created_at AS DATE) - CAST(? AS DATE)))
+                                                  FILTER (WHERE l.created_at < ?), 0) AS balance_days
+                        FROM chunk c
+                                 LEFT JOIN (SELECT p.account_id, p.created_at,
+                                                   CASE WHEN p.entry_type = 'CREDIT' THEN t.amount ELSE -t.amount END AS amount
+                                            FROM account_postings p
+                                                     JOIN transactions t ON t.id = p.transaction_id
+                                            WHERE t.status = 'COMPLETED') l
+                                           ON l.account_id = c.id AND l.created_at >= ?
+                        GROUP BY c.id, c.account_type, c.currency, c.balance
+                        ORDER BY c.id
+                        """.formatted(INTEREST_BEARING),
+                (rs, rowNum) -> new InterestBearingAccount(
+                        rs.getLong("id"),
+                        Account.AccountType.valueOf(rs.getString("account_type")),
+                        rs.getString("currency"),
+                        rs.getBigDecimal("balance_days")),
+                partition.lastAccountId(), partition.rangeEnd(), endTime, limit,
+                days, endTime, start, endTime, startTime);
+    }
+
+    public void insertPostings(LocalDate periodStart, List<InterestPosting> postings) {
+        Date date = Date.valueOf(periodStart);
+        jdbcTemplate.batchUpdate("INSERT INTO savings_interest_postings " +
+                        "(period_start, account_id, transaction_ref, balance_days, interest_rate, amount) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        InterestPosting posting = postings.get(i);
+                        ps.setDate(1, date);
+                        ps.setLong(2, posting.accountId());
+                        ps.setString(3, posting.transactionRef());
+                        ps.setBigDecimal(4, posting.balanceDays());
+                        ps.setBigDecimal(5, posting.interestRate());
+                        ps.setBigDecimal(6, posting.amount());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return postings.size();
+                    }
+                });
+    }
+
+    public void advancePartition(LocalDate periodStart, int partitionNo, long lastAccountId,
+                                 int credited, BigDecimal interest, boolean completed) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("UPDATE savings_interest_runs SET last_account_id = ?, " +
+                        "accounts_credited = accounts_credited + ?, interest_posted = interest_posted + ?, " +
+                        "status = ?, updated_at = ?, finished_at = ? WHERE period_start = ? AND partition_no = ?",
+                lastAccountId, credited, interest, completed ? COMPLETED : RUNNING,
+                now, completed ? now : null, Date.valueOf(periodStart), partitionNo);
+    }
+
+    public record Partition(int partitionNo, long lastAccountId, long rangeEnd) {
+    }
+
+    public record InterestBearingAccount(long id, Account.AccountType accountType, String currency,
+                                         BigDecimal balanceDays) {
+    }
+
+    public record InterestPosting(long accountId, String transactionRef, BigDecimal balanceDays,
+                                  BigDecimal interestRate, BigDecimal amount) {
+    }
+}
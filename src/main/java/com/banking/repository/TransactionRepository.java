@@ -14,15 +14,19 @@ import java.util.List;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
-    @Query("SELECT t FROM Transaction t WHERE " +
-            "(t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId) " +
-            "ORDER BY t.createdAt DESC")
+    // History is read through account_postings, one index range scan per account or user
+    @Query(value = "SELECT t FROM AccountPosting p JOIN p.transaction t " +
+            "WHERE p.accountId = :accountId " +
+            "ORDER BY p.createdAt DESC, p.transactionId DESC",
+            countQuery = "SELECT COUNT(p) FROM AccountPosting p WHERE p.accountId = :accountId")
     Page<Transaction> findByAccountId(@Param("accountId") Long accountId, Pageable pageable);
 
-    @Query("SELECT t FROM Transaction t WHERE " +
-            "(t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId) " +
-            "AND t.createdAt BETWEEN :startDate AND :endDate " +
-            "ORDER BY t.createdAt DESC")
+    @Query(value = "SELECT t FROM AccountPosting p JOIN p.transaction t " +
+            "WHERE p.accountId = :accountId " +
+            "AND p.createdAt BETWEEN :startDate AND :endDate " +
+            "ORDER BY p.createdAt DESC, p.transactionId DESC",
+            countQuery = "SELECT COUNT(p) FROM AccountPosting p WHERE p.accountId = :accountId " +
+                    "AND p.createdAt BETWEEN :startDate AND :endDate")
     Page<Transaction> findByAccountIdAndDateRange(
             @Param("accountId") Long accountId,
             @Param("startDate") LocalDateTime startDate,
@@ -30,11 +34,39 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             Pageable pageable
     );
 
-    @Query("SELECT t FROM Transaction t WHERE " +
-            "t.sourceAccount.user.id = :userId OR t.destinationAccount.user.id = :userId " +
-            "ORDER BY t.createdAt DESC")
+    @Query(value = "SELECT t FROM AccountPosting p JOIN p.transaction t " +
+            "WHERE p.userId = :userId " +
+            "ORDER BY p.createdAt DESC, p.transactionId DESC",
+            countQuery = "SELECT COUNT(p) FROM AccountPosting p WHERE p.userId = :userId")
     Page<Transaction> findByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    // Keyset pages: seek strictly below (beforeCreatedAt, beforeId), no count query.
+    // The redundant createdAt <= bound keeps the seek an index range condition.
+    @Query("SELECT t FROM AccountPosting p JOIN p.transaction t " +
+            "WHERE p.accountId = :accountId " +
+            "AND p.createdAt >= :from AND p.createdAt <= :beforeCreatedAt " +
+            "AND (p.createdAt < :beforeCreatedAt OR p.transactionId < :beforeId) " +
+            "ORDER BY p.createdAt DESC, p.transactionId DESC")
+    List<Transaction> findPageByAccountId(
+            @Param("accountId") Long accountId,
+            @Param("from") LocalDateTime from,
+            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
+
+    @Query("SELECT t FROM AccountPosting p JOIN p.transaction t " +
+            "WHERE p.userId = :userId " +
+            "AND p.createdAt <= :beforeCreatedAt " +
+            "AND (p.createdAt < :beforeCreatedAt OR p.transactionId < :beforeId) " +
+            "ORDER BY p.createdAt DESC, p.transactionId DESC")
+    List<Transaction> findPageByUserId(
+            @Param("userId") Long userId,
+            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
+
     List<Transaction> findTop10BySourceAccountIdOrDestinationAccountIdOrderByCreatedAtDesc(
             Long sourceAccountId, Long destinationAccountId
     );
@@ -8,6 +8,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,9 +18,48 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE " +
-            "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<User> searchUsers(@Param("search") String search, Pageable pageable);
+    // Same expression as idx_users_search_trgm, so the ILIKE is answered from the trigram index
+    @Query(value = "SELECT u.* FROM users u WHERE " + UserSearchJdbcRepository.SEARCH_TEXT + " ILIKE :pattern",
+            countQuery = "SELECT COUNT(*) FROM users u WHERE " + UserSearchJdbcRepository.SEARCH_TEXT + " ILIKE :pattern",
+            nativeQuery = true)
+    Page<User> searchUsers(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.updatedAt AS updatedAt FROM User u " +
+            "WHERE u.isActive = false AND u.updatedAt >= :since")
+    List<DeactivatedUser> findDeactivatedSince(@Param("since") LocalDateTime since);
+
+    @Query(value = "SELECT user_id AS \"userId\", role_id AS \"roleId\" FROM user_roles WHERE user_id IN (:userIds)",
+            nativeQuery = true)
+    List<UserRoleLink> findRoleLinks(@Param("userIds") Collection<Long> userIds);
+
+    // One row per role; a user without roles comes back once with a null role id
+    @Query(value = "SELECT u.id AS \"id\", u.email AS \"email\", u.password_hash AS \"passwordHash\", " +
+            "u.is_active AS \"isActive\", ur.role_id AS \"roleId\" " +
+            "FROM users u LEFT JOIN user_roles ur ON ur.user_id = u.id WHERE u.email = :email",
+            nativeQuery = true)
+    List<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    interface UserRoleLink {
+        Long getUserId();
+
+        Long getRoleId();
+    }
+
+    interface UserCredentials {
+        Long getId();
+
+        String getEmail();
+
+        String getPasswordHash();
+
+        Boolean getIsActive();
+
+        Long getRoleId();
+    }
+
+    interface DeactivatedUser {
+        Long getId();
+
+        LocalDateTime getUpdatedAt();
+    }
 }
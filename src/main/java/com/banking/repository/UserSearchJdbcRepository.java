@@ -0,0 +1,78 @@
+package com.banking.repository;
+
+import com.banking.util.SearchCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+
+/**
+ * Plain JDBC access for admin user search. Names and email are matched through the
+ * {@code idx_users_search_trgm} trigram index, account numbers through their unique index.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserSearchJdbcRepository {
+
+    // Must stay identical to the expression indexed in V8__user_search_trigram.sql
+    public static final String SEARCH_TEXT = "(u.first_name || ' ' || u.last_name || ' ' || u.email)";
+
+    // An exact email or account number ranks first; otherwise the best word-level trigram match
+    private static final String TRIGRAM_SEARCH_SQL =
+            "SELECT id, MAX(score) AS score FROM (" +
+                    "SELECT u.id, CAST(CASE WHEN LOWER(u.email) = LOWER(:term) THEN 1 " +
+                    "ELSE word_similarity(:term, " + SEARCH_TEXT + ") END AS REAL) AS score " +
+                    "FROM users u WHERE " + SEARCH_TEXT + " ILIKE :pattern " +
+                    "UNION ALL " +
+                    "SELECT a.user_id, CAST(1 AS REAL) FROM accounts a WHERE a.account_number = :accountNumber" +
+                    ") matches " +
+                    "GROUP BY id " +
+                    "HAVING MAX(score) < :score OR (MAX(score) = :score AND id > :id) " +
+                    "ORDER BY score DESC, id " +
+                    "LIMIT :limit";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public List<UserMatch> searchByTrigram(String term, SearchCursor after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("pattern", containsPattern(term))
+                .addValue("accountNumber", term.toUpperCase(Locale.ROOT))
+                .addValue("score", after.score())
+                .addValue("id", after.id())
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query(TRIGRAM_SEARCH_SQL, params,
+                (rs, rowNum) -> new UserMatch(rs.getLong("id"), rs.getFloat("score")));
+    }
+
+    /**
+     * Streams the searchable text of every user, lower-cased, for building an in-process index.
+     */
+    public void forEachSearchText(BiConsumer<Long, String> consumer) {
+        jdbcTemplate.query("SELECT u.id, LOWER(" + SEARCH_TEXT + ") AS search_text FROM users u",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong("id"), rs.getString("search_text")));
+    }
+
+    public void forEachAccountNumber(BiConsumer<String, Long> consumer) {
+        jdbcTemplate.query("SELECT account_number, user_id FROM accounts",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getString("account_number"), rs.getLong("user_id")));
+    }
+
+    /**
+     * ILIKE pattern matching {@code term} anywhere, with LIKE wildcards in the term escaped.
+     */
+    public static String containsPattern(String term) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    public record UserMatch(long userId, float score) {
+    }
+}
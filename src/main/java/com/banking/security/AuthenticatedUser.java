@@ -0,0 +1,15 @@
+package com.banking.security;
+
+import java.security.Principal;
+
+/**
+ * Principal built from verified token claims. {@link #getName()} is the user's email,
+ * which is what {@code Authentication.getName()} returns to the services.
+ */
+public record AuthenticatedUser(Long userId, String email) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
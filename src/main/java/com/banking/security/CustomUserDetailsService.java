@@ -1,7 +1,7 @@
 package com.banking.security;
 
-import com.banking.entity.User;
 import com.banking.repository.UserRepository;
+import com.banking.repository.UserRepository.UserCredentials;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -12,6 +12,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,13 +21,18 @@ import java.util.stream.Collectors;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final RoleCatalog roleCatalog;
 
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        // Credentials and role ids in one query; role names come from the catalog
+        List<UserCredentials> rows = userRepository.findCredentialsByEmail(email);
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
 
+        UserCredentials user = rows.get(0);
         if (!user.getIsActive()) {
             throw new UsernameNotFoundException("User account is inactive");
         }
@@ -37,13 +44,15 @@ public class CustomUserDetailsService implements UserDetailsService {
                 true,
                 true,
                 true,
-                getAuthorities(user)
+                getAuthorities(rows)
         );
     }
 
-    private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName().name()))
+    private Collection<? extends GrantedAuthority> getAuthorities(List<UserCredentials> rows) {
+        return rows.stream()
+                .map(UserCredentials::getRoleId)
+                .filter(Objects::nonNull)
+                .map(roleId -> new SimpleGrantedAuthority("ROLE_" + roleCatalog.nameOf(roleId).name()))
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.banking.security;
+
+import com.banking.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Token buckets in front of the password-hashing endpoints, one per client IP and one per
+ * account email. A request that finds either bucket empty is rejected with 429 before any
+ * hashing work is queued. Idle buckets are dropped after ten minutes.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final Cache<String, TokenBucket> accountBuckets;
+    private final int ipCapacity;
+    private final double ipRefillPerNano;
+    private final int accountCapacity;
+    private final double accountRefillPerNano;
+    private final Counter ipRejected;
+    private final Counter accountRejected;
+
+    public LoginRateLimiter(MeterRegistry meterRegistry,
+                            @Value("${auth.rate-limit.ip-capacity:20}") int ipCapacity,
+                            @Value("${auth.rate-limit.ip-refill-per-minute:20}") int ipRefillPerMinute,
+                            @Value("${auth.rate-limit.account-capacity:5}") int accountCapacity,
+                            @Value("${auth.rate-limit.account-refill-per-minute:5}") int accountRefillPerMinute,
+                            @Value("${auth.rate-limit.max-tracked:100000}") long maxTracked) {
+        this.ipBuckets = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterAccess(IDLE_TIMEOUT).build();
+        this.accountBuckets = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterAccess(IDLE_TIMEOUT).build();
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerNano = ipRefillPerMinute / (double) Duration.ofMinutes(1).toNanos();
+        this.accountCapacity = accountCapacity;
+        this.accountRefillPerNano = accountRefillPerMinute / (double) Duration.ofMinutes(1).toNanos();
+        this.ipRejected = meterRegistry.counter("auth.rate_limited", "scope", "ip");
+        this.accountRejected = meterRegistry.counter("auth.rate_limited", "scope", "account");
+    }
+
+    /**
+     * Takes one token from the IP bucket and, when an account is given, from the account bucket.
+     */
+    public void acquire(String clientIp, String accountEmail) {
+        TokenBucket ipBucket = ipBuckets.get(clientIp, key -> new TokenBucket(ipCapacity, ipRefillPerNano));
+        if (!ipBucket.tryConsume()) {
+            ipRejected.increment();
+            throw new TooManyRequestsException("Too many attempts from this address, please retry later");
+        }
+        if (accountEmail == null) {
+            return;
+        }
+        TokenBucket accountBucket = accountBuckets.get(accountEmail.toLowerCase(Locale.ROOT),
+                key -> new TokenBucket(accountCapacity, accountRefillPerNano));
+        if (!accountBucket.tryConsume()) {
+            accountRejected.increment();
+            throw new TooManyRequestsException("Too many attempts for this account, please retry later");
+        }
+    }
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(int capacity, double refillPerNano) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        private synchronized boolean tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.banking.security;
+
+import com.banking.entity.Role;
+import com.banking.repository.RoleRepository;
+import com.banking.repository.UserRepository;
+import com.banking.repository.UserRepository.UserRoleLink;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable in-memory copy of the {@code roles} table, which holds a handful of rows. Read
+ * paths load a user's role ids from {@code user_roles} and resolve the names here, so no
+ * query joins or lazily loads roles. The snapshot is replaced when an unknown role shows up.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoleCatalog {
+
+    private final RoleRepository roleRepository;
+    private final UserRepository userRepository;
+
+    private volatile Snapshot snapshot;
+
+    public Optional<Long> idOf(Role.RoleName name) {
+        Long id = current().idsByName().get(name);
+        if (id == null) {
+            id = reload().idsByName().get(name);
+        }
+        return Optional.ofNullable(id);
+    }
+
+    public Set<String> roleNamesOf(Long userId) {
+        return roleNamesByUser(List.of(userId)).getOrDefault(userId, Set.of());
+    }
+
+    /**
+     * Role names of each user, read with one query on {@code user_roles}.
+     */
+    public Map<Long, Set<String>> roleNamesByUser(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Set<String>> names = new HashMap<>();
+        for (UserRoleLink link : userRepository.findRoleLinks(userIds)) {
+            names.computeIfAbsent(link.getUserId(), id -> new HashSet<>()).add(nameOf(link.getRoleId()).name());
+        }
+        return names;
+    }
+
+    public Role.RoleName nameOf(Long roleId) {
+        Role.RoleName name = current().namesById().get(roleId);
+        if (name == null) {
+            name = reload().namesById().get(roleId);
+        }
+        if (name == null) {
+            throw new IllegalStateException("Unknown role id: " + roleId);
+        }
+        return name;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : reload();
+    }
+
+    private synchronized Snapshot reload() {
+        Map<Long, Role.RoleName> namesById = new HashMap<>();
+        Map<Role.RoleName, Long> idsByName = new EnumMap<>(Role.RoleName.class);
+        for (Role role : roleRepository.findAll()) {
+            namesById.put(role.getId(), role.getName());
+            idsByName.put(role.getName(), role.getId());
+        }
+        Snapshot loaded = new Snapshot(Map.copyOf(namesById), Map.copyOf(idsByName));
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private record Snapshot(Map<Long, Role.RoleName> namesById, Map<Role.RoleName, Long> idsByName) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.banking.security;
+
+import com.banking.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users deactivated while they may still hold a valid token. Claims-only authentication
+ * rejects tokens issued at or before the deactivation instead of loading the user.
+ * <p>
+ * Deactivations on this node are recorded immediately; deactivations on other nodes are
+ * picked up from the {@code users} table every {@code jwt.revocation-refresh-ms}. Entries
+ * older than the token lifetime can no longer match a live token and are dropped, so the
+ * set stays small.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final UserRepository userRepository;
+    private final Duration tokenLifetime;
+    private final Map<Long, Instant> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(UserRepository userRepository,
+                                  @Value("${jwt.expiration}") long expirationMs) {
+        this.userRepository = userRepository;
+        this.tokenLifetime = Duration.ofMillis(expirationMs);
+    }
+
+    /**
+     * Invalidates every token of the user issued up to now. Token issue times have second
+     * precision, so the whole current second is covered.
+     */
+    public void revoke(Long userId) {
+        record(userId, Instant.now());
+    }
+
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        Instant revoked = revokedBefore.get(userId);
+        return revoked != null && !issuedAt.isAfter(revoked);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.revocation-refresh-ms:10000}")
+    public void refresh() {
+        Instant horizon = Instant.now().minus(tokenLifetime);
+        revokedBefore.values().removeIf(revoked -> revoked.isBefore(horizon));
+
+        LocalDateTime since = LocalDateTime.ofInstant(horizon, ZoneId.systemDefault());
+        try {
+            userRepository.findDeactivatedSince(since).forEach(user ->
+                    record(user.getId(), user.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant()));
+        } catch (RuntimeException ex) {
+            log.warn("Could not refresh revoked users", ex);
+        }
+    }
+
+    private void record(Long userId, Instant revokedAt) {
+        Instant second = revokedAt.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1).minusNanos(1);
+        revokedBefore.merge(userId, second, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    }
+}
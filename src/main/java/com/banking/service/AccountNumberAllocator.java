@@ -0,0 +1,33 @@
+package com.banking.service;
+
+import com.banking.repository.AccountRepository;
+import com.banking.util.AccountNumberGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out account numbers from a block of serials reserved with one {@code nextval} on
+ * {@code account_number_seq}. Blocks never overlap across nodes, so numbers are unique without
+ * checking the accounts table; serials left in a block at shutdown are simply skipped.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountNumberAllocator {
+
+    private final AccountRepository accountRepository;
+
+    private long blockSize;
+    private long nextSerial;
+    private long blockEnd;
+
+    public synchronized String next() {
+        if (nextSerial == blockEnd) {
+            if (blockSize == 0) {
+                blockSize = accountRepository.getAccountNumberBlockSize();
+            }
+            nextSerial = accountRepository.reserveAccountNumberBlock();
+            blockEnd = nextSerial + blockSize;
+        }
+        return AccountNumberGenerator.generate(nextSerial++);
+    }
+}
@@ -2,11 +2,17 @@ package com.banking.service;
 
 import com.banking.dto.*;
 import com.banking.entity.Account;
+import com.banking.entity.AccountPosting;
 import com.banking.entity.Loan;
 import com.banking.entity.User;
 import com.banking.exception.BadRequestException;
 import com.banking.exception.ResourceNotFoundException;
 import com.banking.repository.*;
+import com.banking.repository.UserSearchJdbcRepository.UserMatch;
+import com.banking.security.RoleCatalog;
+import com.banking.security.TokenRevocationService;
+import com.banking.util.SearchCursor;
+import com.banking.util.TransactionRefGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,14 +23,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.banking.entity.Transaction;
 
-import java.time.format.DateTimeFormatter;
-
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,6 +41,13 @@ public class AdminService {
     private final AccountRepository accountRepository;
     private final LoanRepository loanRepository;
     private final TransactionRepository transactionRepository;
+    private final AccountPostingRepository accountPostingRepository;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final TokenRevocationService tokenRevocationService;
+    private final DashboardStatistics dashboardStatistics;
+    private final LoanScheduleService loanScheduleService;
+    private final UserSearchIndex userSearchIndex;
+    private final RoleCatalog roleCatalog;
 
     @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN')")
@@ -43,12 +56,54 @@ public class AdminService {
         Page<User> userPage;
 
         if (search != null && !search.trim().isEmpty()) {
-            userPage = userRepository.searchUsers(search, pageable);
+            userPage = userRepository.searchUsers(UserSearchJdbcRepository.containsPattern(search.trim()), pageable);
         } else {
             userPage = userRepository.findAll(pageable);
         }
 
-        return userPage.map(this::mapUserToDto);
+        // Roles of the whole page in one query
+        Map<Long, Set<String>> roles = roleCatalog.roleNamesByUser(userPage.map(User::getId).getContent());
+        return userPage.map(user -> mapUserToDto(user, roles.getOrDefault(user.getId(), Set.of())));
+    }
+
+    /**
+     * Ranked search by name, email or account number, paged with a keyset cursor on
+     * (score, id). An empty cursor starts at the best match.
+     */
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserSearchResponse searchUsers(String query, String cursor, int size) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search term is required");
+        }
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+        SearchCursor position = cursor == null || cursor.isEmpty() ? SearchCursor.FIRST : SearchCursor.decode(cursor);
+
+        // One extra match tells whether another page follows
+        List<UserMatch> matches = userSearchIndex.search(query.trim(), position, size + 1);
+        String nextCursor = null;
+        if (matches.size() > size) {
+            matches = matches.subList(0, size);
+            UserMatch last = matches.get(size - 1);
+            nextCursor = new SearchCursor(last.score(), last.userId()).encode();
+        }
+
+        List<Long> userIds = matches.stream().map(UserMatch::userId).toList();
+        Map<Long, User> usersById = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Set<String>> roles = roleCatalog.roleNamesByUser(userIds);
+        List<UserDto> users = matches.stream()
+                .map(match -> usersById.get(match.userId()))
+                .filter(Objects::nonNull)
+                .map(user -> mapUserToDto(user, roles.getOrDefault(user.getId(), Set.of())))
+                .collect(Collectors.toList());
+
+        return UserSearchResponse.builder()
+                .users(users)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Transactional
@@ -60,7 +115,12 @@ public class AdminService {
         user.setIsActive(isActive);
         User updatedUser = userRepository.save(user);
 
-        return mapUserToDto(updatedUser);
+        // Tokens already issued are not re-checked against the database
+        if (!isActive) {
+            tokenRevocationService.revoke(userId);
+        }
+
+        return mapUserToDto(updatedUser, roleCatalog.roleNamesOf(userId));
     }
 
     @Transactional(readOnly = true)
@@ -102,12 +162,16 @@ public class AdminService {
         loan.setMaturityDate(LocalDateTime.now().plusMonths(loan.getTermMonths()).toLocalDate());
 
         Loan updatedLoan = loanRepository.save(loan);
+        dashboardStatistics.loanStatusChanged(Loan.LoanStatus.PENDING, Loan.LoanStatus.APPROVED);
         return mapLoanToDto(updatedLoan);
     }
 
-    @Transactional
     @PreAuthorize("hasRole('ADMIN') or hasRole('LOAN_OFFICER')")
     public LoanDto disburseLoan(Long loanId) {
+        return retryExecutor.executeInTransaction("admin.disburse-loan", () -> applyDisbursement(loanId));
+    }
+
+    private LoanDto applyDisbursement(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + loanId));
 
@@ -136,10 +200,17 @@ public class AdminService {
         loan.setOutstandingBalance(loan.getPrincipalAmount());
 
         // Calculate and set maturity date
-        LocalDate maturityDate = LocalDate.now().plusMonths(loan.getTermMonths());
+        LocalDate startDate = LocalDate.now();
+        LocalDate maturityDate = startDate.plusMonths(loan.getTermMonths());
         loan.setMaturityDate(maturityDate);
 
+        // Persist the full installment schedule; repayments settle against it
+        loanScheduleService.createSchedule(loan, startDate);
+
         Loan updatedLoan = loanRepository.save(loan);
+        dashboardStatistics.loanStatusChanged(Loan.LoanStatus.APPROVED, Loan.LoanStatus.ACTIVE);
+        dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_LOANS, loan.getPrincipalAmount());
+        dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_DEPOSITS, loan.getPrincipalAmount());
 
         // Optional: Create a transaction record for the disbursement
         createDisbursementTransaction(loan, account);
@@ -150,7 +221,7 @@ public class AdminService {
     // Helper method to create transaction record for disbursement
     private void createDisbursementTransaction(Loan loan, Account account) {
         Transaction transaction = Transaction.builder()
-                .transactionRef(generateTransactionRef())
+                .transactionRef(TransactionRefGenerator.generate())
                 .destinationAccount(account)
                 .transactionType(Transaction.TransactionType.DEPOSIT)
                 .amount(loan.getPrincipalAmount())
@@ -160,13 +231,7 @@ public class AdminService {
                 .build();
 
         transactionRepository.save(transaction);
-    }
-
-    // Helper method to generate transaction reference
-    private String generateTransactionRef() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"));
-        int randomNum = 100 + new java.security.SecureRandom().nextInt(900);
-        return "TXN" + timestamp + randomNum;
+        accountPostingRepository.saveAll(AccountPosting.legsOf(transaction));
     }
 
     @Transactional
@@ -183,44 +248,16 @@ public class AdminService {
         loan.setRejectionReason(request.getReason());
 
         Loan updatedLoan = loanRepository.save(loan);
+        dashboardStatistics.loanStatusChanged(Loan.LoanStatus.PENDING, Loan.LoanStatus.REJECTED);
         return mapLoanToDto(updatedLoan);
     }
 
-    @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN')")
     public Map<String, Object> getDashboardStats() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // User statistics
-        long totalUsers = userRepository.count();
-        stats.put("totalUsers", totalUsers);
-
-        // Account statistics
-        long totalAccounts = accountRepository.count();
-        long activeAccounts = accountRepository.countActiveAccounts();
-        BigDecimal totalDeposits = accountRepository.getTotalDeposits();
-        if (totalDeposits == null) totalDeposits = BigDecimal.ZERO;
-
-        stats.put("totalAccounts", totalAccounts);
-        stats.put("activeAccounts", activeAccounts);
-        stats.put("totalDeposits", totalDeposits);
-
-        // Loan statistics
-        long pendingLoans = loanRepository.countByStatus(Loan.LoanStatus.PENDING);
-        long activeLoans = loanRepository.countByStatus(Loan.LoanStatus.ACTIVE);
-        long approvedLoans = loanRepository.countByStatus(Loan.LoanStatus.APPROVED);
-        BigDecimal totalOutstandingLoans = loanRepository.getTotalOutstandingLoans();
-        if (totalOutstandingLoans == null) totalOutstandingLoans = BigDecimal.ZERO;
-
-        stats.put("pendingLoans", pendingLoans);
-        stats.put("activeLoans", activeLoans);
-        stats.put("approvedLoans", approvedLoans);
-        stats.put("totalLoans", totalOutstandingLoans);
-
-        return stats;
+        return dashboardStatistics.snapshot();
     }
 
-    private UserDto mapUserToDto(User user) {
+    private UserDto mapUserToDto(User user, Set<String> roles) {
         return UserDto.builder()
                 .id(user.getId())
                 .email(user.getEmail())
@@ -230,9 +267,7 @@ public class AdminService {
                 .dateOfBirth(user.getDateOfBirth())
                 .address(user.getAddress())
                 .isActive(user.getIsActive())
-                .roles(user.getRoles().stream()
-                        .map(role -> role.getName().name())
-                        .collect(Collectors.toSet()))
+                .roles(roles)
                 .build();
     }
 
@@ -5,23 +5,32 @@ import com.banking.entity.Role;
 import com.banking.entity.User;
 import com.banking.exception.DuplicateResourceException;
 import com.banking.exception.ResourceNotFoundException;
+import com.banking.exception.UnauthorizedException;
 import com.banking.repository.RoleRepository;
 import com.banking.repository.UserRepository;
 import com.banking.security.JwtUtil;
+import com.banking.security.RoleCatalog;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.util.Set;
+
+/**
+ * Registration and login. BCrypt work waits on the bounded hashing pool for up to
+ * {@code auth.hashing.timeout-ms}, so it runs outside any transaction: credentials are read
+ * in a short query, hashed or matched with no connection held, and the result is written in
+ * a separate short transaction.
+ */
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -31,18 +40,32 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
+    private final DashboardStatistics dashboardStatistics;
+    private final UserSearchIndex userSearchIndex;
+    private final RoleCatalog roleCatalog;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
     public RegisterResponse register(RegisterRequest request) {
         // Check if user already exists
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new DuplicateResourceException("User with email " + request.getEmail() + " already exists");
         }
 
+        String passwordHash = passwordEncoder.encode(request.getPassword());
+        try {
+            return transactionTemplate.execute(status -> createUser(request, passwordHash));
+        } catch (DataIntegrityViolationException ex) {
+            // Registered concurrently while the password was being hashed
+            throw new DuplicateResourceException("User with email " + request.getEmail() + " already exists");
+        }
+    }
+
+    private RegisterResponse createUser(RegisterRequest request, String passwordHash) {
         // Create new user
         User user = User.builder()
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHash)
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .phoneNumber(request.getPhoneNumber())
@@ -52,7 +75,8 @@ public class AuthService {
                 .build();
 
         // Assign CUSTOMER role by default
-        Role customerRole = roleRepository.findByName(Role.RoleName.CUSTOMER)
+        Role customerRole = roleCatalog.idOf(Role.RoleName.CUSTOMER)
+                .map(roleRepository::getReferenceById)
                 .orElseGet(() -> {
                     Role newRole = Role.builder()
                             .name(Role.RoleName.CUSTOMER)
@@ -64,6 +88,8 @@ public class AuthService {
         user.addRole(customerRole);
 
         User savedUser = userRepository.save(user);
+        dashboardStatistics.increment(DashboardStatistics.Stat.TOTAL_USERS);
+        userSearchIndex.userSaved(savedUser);
 
         return RegisterResponse.builder()
                 .id(savedUser.getId())
@@ -74,51 +100,60 @@ public class AuthService {
                 .build();
     }
 
-    @Transactional(readOnly = true)
     public LoginResponse login(LoginRequest request) {
-        // Authenticate user
-        Authentication authentication = authenticationManager.authenticate(
+        // Authenticate user; the credentials lookup is its own read-only transaction
+        authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getEmail(),
                         request.getPassword()
                 )
         );
 
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return transactionTemplate.execute(status -> {
+            // Get user from database
+            User user = userRepository.findByEmail(request.getEmail())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            return buildLoginResponse(user, roleCatalog.roleNamesOf(user.getId()), refreshTokenService.issue(user.getId()));
+        });
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token,
+     * without re-checking the password.
+     */
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public LoginResponse refresh(RefreshTokenRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+
+        User user = userRepository.findById(rotation.userId())
+                .orElseThrow(() -> new UnauthorizedException("User not found"));
+        if (!user.getIsActive()) {
+            refreshTokenService.revokeFamily(rotation.familyId());
+            throw new UnauthorizedException("User account is inactive");
+        }
 
-        // Get user from database
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return buildLoginResponse(user, roleCatalog.roleNamesOf(user.getId()), rotation.refreshToken());
+    }
 
+    private LoginResponse buildLoginResponse(User user, Set<String> roles, String refreshToken) {
         // Create claims with user info
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
-        claims.put("roles", user.getRoles().stream()
-                .map(role -> role.getName().name())
-                .collect(Collectors.toList()));
+        claims.put("roles", List.copyOf(roles));
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(userDetails, claims);
+        String token = jwtUtil.generateToken(user.getEmail(), claims);
 
         // Build user DTO
-        UserDto userDto = UserDto.builder()
-                .id(user.getId())
-                .email(user.getEmail())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .phoneNumber(user.getPhoneNumber())
-                .dateOfBirth(user.getDateOfBirth())
-                .address(user.getAddress())
-                .isActive(user.getIsActive())
-                .roles(user.getRoles().stream()
-                        .map(role -> role.getName().name())
-                        .collect(Collectors.toSet()))
-                .build();
+        UserDto userDto = mapToUserDto(user, roles);
 
         return LoginResponse.builder()
                 .token(token)
                 .type("Bearer")
                 .expiresIn(jwtUtil.getExpirationTime())
+                .refreshToken(refreshToken)
+                .refreshExpiresIn(refreshTokenService.getExpirationTime())
                 .user(userDto)
                 .build();
     }
@@ -137,10 +172,10 @@ public class AuthService {
             throw new RuntimeException("User account is inactive");
         }
 
-        return mapToUserDto(user);
+        return mapToUserDto(user, roleCatalog.roleNamesOf(user.getId()));
     }
 
-    private UserDto mapToUserDto(User user) {
+    private UserDto mapToUserDto(User user, Set<String> roles) {
         return UserDto.builder()
                 .id(user.getId())
                 .email(user.getEmail())
@@ -150,9 +185,7 @@ public class AuthService {
                 .dateOfBirth(user.getDateOfBirth())
                 .address(user.getAddress())
                 .isActive(user.getIsActive())
-                .roles(user.getRoles().stream()
-                        .map(role -> role.getName().name())
-                        .collect(Collectors.toSet()))
+                .roles(roles)
                 .build();
     }
 
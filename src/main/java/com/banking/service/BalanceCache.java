@@ -0,0 +1,129 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of account balances for the balance endpoint.
+ * <p>
+ * Local writes update it after their transaction commits, and an entry is only replaced
+ * by one with a higher version, so a slow reader cannot overwrite a newer balance. Writes
+ * that do not have the full account at hand (the JDBC posting paths) leave a marker with
+ * the version they committed instead of just evicting, so a reader that loaded the row
+ * before that commit cannot put its older balance back. Writes on other nodes are not seen
+ * until the entry expires ({@code balance-cache.ttl-seconds}). Hit and miss counts are
+ * published as {@code cache.gets{cache=account.balance}}; markers count as misses.
+ */
+@Component
+public class BalanceCache {
+
+    private final Cache<Long, CachedBalance> cache;
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+
+    public BalanceCache(MeterRegistry meterRegistry,
+                        @Value("${balance-cache.max-size:100000}") long maxSize,
+                        @Value("${balance-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats(() -> stats)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "account.balance");
+    }
+
+    public Optional<CachedBalance> get(Long accountId) {
+        // Read quietly and count here, so that superseded markers are recorded as misses
+        CachedBalance cached = cache.policy().getIfPresentQuietly(accountId);
+        if (cached == null || cached.superseded()) {
+            stats.recordMisses(1);
+            return Optional.empty();
+        }
+        stats.recordHits(1);
+        return Optional.of(cached);
+    }
+
+    public void put(CachedBalance balance) {
+        cache.asMap().merge(balance.accountId(), balance,
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+
+    /**
+     * Publishes the state of a just-written account once the surrounding transaction commits.
+     * Accounts whose owner is not loaded are evicted instead of being re-read during a flush.
+     */
+    public void putOnCommit(Account account) {
+        if (!Hibernate.isInitialized(account.getUser())) {
+            supersedeOnCommit(Map.of(account.getId(), CachedBalance.of(account).version()));
+            return;
+        }
+        CachedBalance balance = CachedBalance.of(account);
+        afterCommit(() -> put(balance));
+    }
+
+    /**
+     * Once the surrounding transaction commits, replaces each account's entry with a marker
+     * holding the version that transaction wrote; only a balance read at that version or
+     * later is cached again.
+     */
+    public void supersedeOnCommit(Map<Long, Long> committedVersions) {
+        Map<Long, Long> versions = Map.copyOf(committedVersions);
+        afterCommit(() -> versions.forEach((accountId, version) ->
+                put(CachedBalance.superseded(accountId, version))));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public record CachedBalance(Long accountId,
+                                String accountNumber,
+                                BigDecimal balance,
+                                String currency,
+                                Long ownerId,
+                                String ownerEmail,
+                                long version) {
+
+        static CachedBalance superseded(Long accountId, long version) {
+            return new CachedBalance(accountId, null, null, null, null, null, version);
+        }
+
+        boolean superseded() {
+            return balance == null;
+        }
+
+        public static CachedBalance of(Account account) {
+            return new CachedBalance(
+                    account.getId(),
+                    account.getAccountNumber(),
+                    account.getBalance(),
+                    account.getCurrency(),
+                    account.getUser().getId(),
+                    account.getUser().getEmail(),
+                    account.getVersion() != null ? account.getVersion() : 0L);
+        }
+    }
+}
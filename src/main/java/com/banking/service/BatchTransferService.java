@@ -0,0 +1,225 @@
+package com.banking.service;
+
+import com.banking.dto.BatchTransferItemDto;
+import com.banking.dto.BatchTransferRequest;
+import com.banking.dto.BatchTransferResponse;
+import com.banking.dto.TransferRequest;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.repository.LedgerJdbcRepository;
+import com.banking.repository.LedgerJdbcRepository.AccountSnapshot;
+import com.banking.repository.LedgerJdbcRepository.BalanceUpdate;
+import com.banking.repository.LedgerJdbcRepository.TransactionRow;
+import com.banking.util.AccountNumberGenerator;
+import com.banking.util.TransactionRefGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Posts many transfers in one database transaction. All accounts are loaded and locked
+ * with a single set-based query, items are validated in one pass against running
+ * balances, and rows are written with JDBC batching.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchTransferService {
+
+    private static final String INVALID_DESTINATION = "Invalid destination account number";
+
+    private final LedgerJdbcRepository ledgerRepository;
+    private final BalanceCache balanceCache;
+
+    @Value("${posting.lock-timeout-ms:3000}")
+    private long lockTimeoutMs;
+
+    @Transactional
+    public BatchTransferResponse transfer(BatchTransferRequest request) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        BatchTransferRequest.Mode mode = request.getMode() != null
+                ? request.getMode()
+                : BatchTransferRequest.Mode.ALL_OR_NOTHING;
+        List<TransferRequest> transfers = request.getTransfers();
+
+        // Load and lock every account referenced by the batch in one statement; malformed
+        // destination numbers never reach the lock query
+        Set<Long> sourceIds = new HashSet<>();
+        Set<String> destinationNumbers = new HashSet<>();
+        int malformedCount = 0;
+        for (TransferRequest transfer : transfers) {
+            sourceIds.add(transfer.getSourceAccountId());
+            if (AccountNumberGenerator.isWellFormed(transfer.getDestinationAccountNumber())) {
+                destinationNumbers.add(transfer.getDestinationAccountNumber());
+            } else {
+                malformedCount++;
+            }
+        }
+
+        if (mode == BatchTransferRequest.Mode.ALL_OR_NOTHING && malformedCount > 0) {
+            List<BatchTransferItemDto> results = new ArrayList<>(transfers.size());
+            for (int i = 0; i < transfers.size(); i++) {
+                TransferRequest transfer = transfers.get(i);
+                results.add(AccountNumberGenerator.isWellFormed(transfer.getDestinationAccountNumber())
+                        ? toItem(i, transfer, BatchTransferItemDto.ItemStatus.NOT_APPLIED, null, "Batch rejected")
+                        : toItem(i, transfer, BatchTransferItemDto.ItemStatus.REJECTED, null, INVALID_DESTINATION));
+            }
+            return toResponse(mode, results, 0, transfers.size());
+        }
+
+        Map<Long, BatchAccount> accountsById = new HashMap<>();
+        Map<String, BatchAccount> accountsByNumber = new HashMap<>();
+        ledgerRepository.setLocalLockTimeout(lockTimeoutMs);
+        for (AccountSnapshot snapshot : ledgerRepository.lockAccounts(sourceIds, destinationNumbers)) {
+            BatchAccount account = new BatchAccount(snapshot);
+            accountsById.put(snapshot.id(), account);
+            accountsByNumber.put(snapshot.accountNumber(), account);
+        }
+
+        // Validate and apply every item against running balances
+        LocalDateTime now = LocalDateTime.now();
+        List<BatchTransferItemDto> results = new ArrayList<>(transfers.size());
+        List<TransactionRow> rows = new ArrayList<>(transfers.size());
+        int failureCount = 0;
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            BatchAccount source = accountsById.get(transfer.getSourceAccountId());
+            BatchAccount destination = accountsByNumber.get(transfer.getDestinationAccountNumber());
+
+            String error = validate(transfer, source, destination, userEmail);
+            if (error != null) {
+                failureCount++;
+                results.add(toItem(i, transfer, BatchTransferItemDto.ItemStatus.REJECTED, null, error));
+                continue;
+            }
+
+            source.debit(transfer.getAmount());
+            destination.credit(transfer.getAmount());
+
+            TransactionRow row = new TransactionRow(
+                    TransactionRefGenerator.generate(),
+                    source.snapshot.id(),
+                    destination.snapshot.id(),
+                    Transaction.TransactionType.TRANSFER,
+                    transfer.getAmount(),
+                    source.snapshot.currency(),
+                    transfer.getDescription(),
+                    Transaction.TransactionStatus.COMPLETED,
+                    now
+            );
+            rows.add(row);
+            results.add(toItem(i, transfer, BatchTransferItemDto.ItemStatus.COMPLETED, row.transactionRef(), null));
+        }
+
+        if (mode == BatchTransferRequest.Mode.ALL_OR_NOTHING && failureCount > 0) {
+            // Nothing is written; valid items are reported as not applied
+            results.replaceAll(item -> item.getStatus() == BatchTransferItemDto.ItemStatus.COMPLETED
+                    ? toItem(item.getIndex(), transfers.get(item.getIndex()),
+                    BatchTransferItemDto.ItemStatus.NOT_APPLIED, null, "Batch rejected")
+                    : item);
+            return toResponse(mode, results, 0, transfers.size());
+        }
+
+        if (!rows.isEmpty()) {
+            ledgerRepository.insertTransactions(rows);
+
+            List<BalanceUpdate> updates = accountsById.values().stream()
+                    .filter(account -> account.changed)
+                    .map(account -> new BalanceUpdate(account.snapshot.id(), account.balance, account.snapshot.version()))
+                    .toList();
+            if (ledgerRepository.updateBalances(updates) > 0) {
+                throw new OptimisticLockingFailureException("Accounts were modified concurrently, please retry");
+            }
+            balanceCache.supersedeOnCommit(updates.stream()
+                    .collect(Collectors.toMap(BalanceUpdate::accountId, BalanceUpdate::writtenVersion)));
+        }
+
+        return toResponse(mode, results, rows.size(), failureCount);
+    }
+
+    private String validate(TransferRequest transfer, BatchAccount source, BatchAccount destination, String userEmail) {
+        if (source == null) {
+            return "Source account not found";
+        }
+        if (!source.snapshot.ownerEmail().equals(userEmail)) {
+            return "You don't have access to this account";
+        }
+        if (source.snapshot.status() != Account.AccountStatus.ACTIVE) {
+            return "Account is not active";
+        }
+        if (!AccountNumberGenerator.isWellFormed(transfer.getDestinationAccountNumber())) {
+            return INVALID_DESTINATION;
+        }
+        if (destination == null) {
+            return "Destination account not found";
+        }
+        if (destination.snapshot.status() != Account.AccountStatus.ACTIVE) {
+            return "Account is not active";
+        }
+        if (source == destination) {
+            return "Cannot transfer to the same account";
+        }
+        if (source.balance.compareTo(transfer.getAmount()) < 0) {
+            return "Insufficient balance for transfer";
+        }
+        return null;
+    }
+
+    private BatchTransferItemDto toItem(int index, TransferRequest transfer,
+                                        BatchTransferItemDto.ItemStatus status, String transactionRef, String error) {
+        return BatchTransferItemDto.builder()
+                .index(index)
+                .sourceAccountId(transfer.getSourceAccountId())
+                .destinationAccountNumber(transfer.getDestinationAccountNumber())
+                .amount(transfer.getAmount())
+                .status(status)
+                .transactionRef(transactionRef)
+                .error(error)
+                .build();
+    }
+
+    private BatchTransferResponse toResponse(BatchTransferRequest.Mode mode, List<BatchTransferItemDto> results,
+                                             int successCount, int failureCount) {
+        return BatchTransferResponse.builder()
+                .mode(mode)
+                .totalCount(results.size())
+                .successCount(successCount)
+                .failureCount(failureCount)
+                .results(results)
+                .build();
+    }
+
+    private static final class BatchAccount {
+        private final AccountSnapshot snapshot;
+        private BigDecimal balance;
+        private boolean changed;
+
+        private BatchAccount(AccountSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.balance = snapshot.balance();
+        }
+
+        private void debit(BigDecimal amount) {
+            balance = balance.subtract(amount);
+            changed = true;
+        }
+
+        private void credit(BigDecimal amount) {
+            balance = balance.add(amount);
+            changed = true;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.banking.service;
+
+import com.banking.entity.Loan;
+import com.banking.repository.DashboardStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Figures for the admin dashboard, kept as counters instead of being aggregated per request.
+ * <p>
+ * State-change paths record deltas on their own transaction: they are summed per transaction
+ * (amounts in cents) and journaled in one batched insert just before it commits, so a change
+ * and its delta become visible together. Every {@code dashboard-stats.flush-interval-ms} the
+ * journal is folded into {@code dashboard_stats}, and every
+ * {@code dashboard-stats.reconcile-interval-ms} the table is rebuilt from a full scan, which
+ * also corrects changes made outside these paths. The scan deletes the journal rows its
+ * snapshot covers, so no delta is counted twice. A snapshot reads the summary rows together
+ * with the journal.
+ */
+@Slf4j
+@Component
+public class DashboardStatistics {
+
+    public enum Stat {
+        TOTAL_USERS("totalUsers", false),
+        TOTAL_ACCOUNTS("totalAccounts", false),
+        ACTIVE_ACCOUNTS("activeAccounts", false),
+        TOTAL_DEPOSITS("totalDeposits", true),
+        PENDING_LOANS("pendingLoans", false),
+        ACTIVE_LOANS("activeLoans", false),
+        APPROVED_LOANS("approvedLoans", false),
+        TOTAL_LOANS("totalLoans", true);
+
+        private final String key;
+        private final boolean amount;
+
+        Stat(String key, boolean amount) {
+            this.key = key;
+            this.amount = amount;
+        }
+    }
+
+    private static final int AMOUNT_SCALE = 2;
+
+    private final DashboardStatsRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    public DashboardStatistics(DashboardStatsRepository repository, TransactionTemplate transactionTemplate) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void increment(Stat stat) {
+        record(stat, 1);
+    }
+
+    public void decrement(Stat stat) {
+        record(stat, -1);
+    }
+
+    public void add(Stat stat, BigDecimal amount) {
+        record(stat, amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public void loanStatusChanged(Loan.LoanStatus from, Loan.LoanStatus to) {
+        Stat fromStat = loanStat(from);
+        Stat toStat = loanStat(to);
+        if (fromStat != null) {
+            decrement(fromStat);
+        }
+        if (toStat != null) {
+            increment(toStat);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, BigDecimal> stored = repository.findAll();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Stat stat : Stat.values()) {
+            BigDecimal value = stored.getOrDefault(stat.key, BigDecimal.ZERO);
+            stats.put(stat.key, stat.amount ? value.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP) : value.longValue());
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard-stats.flush-interval-ms:1000}")
+    public void flush() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.foldDeltas());
+        } catch (RuntimeException ex) {
+            // The journal stays in place for the next flush
+            log.warn("Could not flush dashboard statistics: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${dashboard-stats.reconcile-interval-ms:600000}",
+            fixedDelayString = "${dashboard-stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        transactionTemplate.executeWithoutResult(status -> repository.reconcile());
+    }
+
+    private void record(Stat stat, long delta) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            repository.insertDeltas(Map.of(stat.key, toValue(stat, delta)));
+            return;
+        }
+        TransactionDeltas deltas = (TransactionDeltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            deltas = new TransactionDeltas();
+            TransactionSynchronizationManager.bindResource(this, deltas);
+            TransactionSynchronizationManager.registerSynchronization(deltas);
+        }
+        deltas.sums.merge(stat, delta, Long::sum);
+    }
+
+    private static BigDecimal toValue(Stat stat, long delta) {
+        return stat.amount ? BigDecimal.valueOf(delta, AMOUNT_SCALE) : BigDecimal.valueOf(delta);
+    }
+
+    // One transaction's deltas, journaled just before it commits
+    private final class TransactionDeltas implements TransactionSynchronization {
+        private final Map<Stat, Long> sums = new EnumMap<>(Stat.class);
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+            sums.forEach((stat, delta) -> {
+                if (delta != 0) {
+                    deltas.put(stat.key, toValue(stat, delta));
+                }
+            });
+            if (!deltas.isEmpty()) {
+                repository.insertDeltas(deltas);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(DashboardStatistics.this);
+        }
+    }
+
+    private static Stat loanStat(Loan.LoanStatus status) {
+        if (status == null) {
+            return null;
+        }
+        return switch (status) {
+            case PENDING -> Stat.PENDING_LOANS;
+            case APPROVED -> Stat.APPROVED_LOANS;
+            case ACTIVE -> Stat.ACTIVE_LOANS;
+            default -> null;
+        };
+    }
+}
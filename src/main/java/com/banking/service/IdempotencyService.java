@@ -0,0 +1,290 @@
+package com.banking.service;
+
+import com.banking.entity.IdempotencyRecord;
+import com.banking.exception.BadRequestException;
+import com.banking.exception.DuplicateResourceException;
+import com.banking.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Makes money-moving requests safe to retry. The first successful response for a
+ * (user, Idempotency-Key) pair is stored and replayed for every retry.
+ * <p>
+ * Completed responses are kept in a bounded in-memory cache with TTL eviction in front
+ * of the {@code idempotency_keys} table. A duplicate arriving while the first request is
+ * still running waits for it: on the same node through the in-flight future, across
+ * nodes by polling the table. Failed requests, and responses outside 2xx (nothing was
+ * done), release their key so they can be retried.
+ * <p>
+ * A response the action's {@code settlement} marks as provisional is returned to the caller
+ * but not stored: the key stays IN_PROGRESS until the outcome is known, then stores the
+ * final response, or is released if the work did not happen.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final long waitTimeoutMs;
+    private final Cache<String, StoredResponse> completed;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.cache-size:100000}") long cacheSize,
+                              @Value("${idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public <T> ResponseEntity<T> execute(String idempotencyKey,
+                                         String operation,
+                                         Object request,
+                                         Class<T> responseType,
+                                         Supplier<ResponseEntity<T>> action) {
+        return execute(idempotencyKey, operation, request, responseType, action, body -> Optional.empty());
+    }
+
+    /**
+     * As {@link #execute(String, String, Object, Class, Supplier)}, where {@code settlement}
+     * returns the final body for a response body that is not final yet.
+     */
+    public <T> ResponseEntity<T> execute(String idempotencyKey,
+                                         String operation,
+                                         Object request,
+                                         Class<T> responseType,
+                                         Supplier<ResponseEntity<T>> action,
+                                         Function<T, Optional<CompletableFuture<T>>> settlement) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        String requestHash = hash(operation, request);
+        String cacheKey = owner + '\n' + idempotencyKey;
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (true) {
+            StoredResponse stored = completed.getIfPresent(cacheKey);
+            if (stored != null) {
+                return replay(stored, requestHash, responseType);
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, mine);
+            if (running != null) {
+                // Same key already running on this node: wait for it instead of racing it
+                StoredResponse result = await(running, deadline);
+                if (result != null) {
+                    return replay(result, requestHash, responseType);
+                }
+                continue;
+            }
+
+            try {
+                return lead(owner, idempotencyKey, cacheKey, requestHash, responseType, action, settlement,
+                        mine, deadline);
+            } finally {
+                inFlight.remove(cacheKey, mine);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int removed = repository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            log.debug("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private <T> ResponseEntity<T> lead(String owner,
+                                       String key,
+                                       String cacheKey,
+                                       String requestHash,
+                                       Class<T> responseType,
+                                       Supplier<ResponseEntity<T>> action,
+                                       Function<T, Optional<CompletableFuture<T>>> settlement,
+                                       CompletableFuture<StoredResponse> mine,
+                                       long deadline) {
+        try {
+            Optional<StoredResponse> existing = claimOrAwait(owner, key, requestHash, deadline);
+            if (existing.isPresent()) {
+                completed.put(cacheKey, existing.get());
+                mine.complete(existing.get());
+                return replay(existing.get(), requestHash, responseType);
+            }
+
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException ex) {
+                repository.release(owner, key, IdempotencyRecord.RecordStatus.IN_PROGRESS);
+                throw ex;
+            }
+
+            int status = response.getStatusCode().value();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                repository.release(owner, key, IdempotencyRecord.RecordStatus.IN_PROGRESS);
+                return response;
+            }
+
+            Optional<CompletableFuture<T>> pending = response.getBody() != null
+                    ? settlement.apply(response.getBody())
+                    : Optional.empty();
+            if (pending.isPresent()) {
+                // Off the thread that settles it, which may be a posting shard
+                pending.get().whenCompleteAsync((body, ex) -> {
+                    if (ex != null) {
+                        repository.release(owner, key, IdempotencyRecord.RecordStatus.IN_PROGRESS);
+                    } else {
+                        store(owner, key, cacheKey, new StoredResponse(requestHash, status, writeJson(body)));
+                    }
+                });
+                return response;
+            }
+
+            StoredResponse stored = new StoredResponse(requestHash, status, writeJson(response.getBody()));
+            mine.complete(stored);
+            store(owner, key, cacheKey, stored);
+            return response;
+        } finally {
+            // Waiters of a failed attempt see null and start over
+            mine.complete(null);
+        }
+    }
+
+    private void store(String owner, String key, String cacheKey, StoredResponse stored) {
+        completed.put(cacheKey, stored);
+        try {
+            repository.complete(owner, key, IdempotencyRecord.RecordStatus.COMPLETED,
+                    stored.status(), stored.body());
+        } catch (RuntimeException ex) {
+            log.warn("Could not persist idempotent response for key {}", key, ex);
+        }
+    }
+
+    private Optional<StoredResponse> claimOrAwait(String owner, String key, String requestHash, long deadline) {
+        IdempotencyRecord.RecordId id = new IdempotencyRecord.RecordId(owner, key);
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            if (repository.claim(owner, key, requestHash, now, now.plus(ttl)) == 1) {
+                return Optional.empty();
+            }
+
+            Optional<IdempotencyRecord> record = repository.findById(id);
+            if (record.isPresent() && record.get().getStatus() == IdempotencyRecord.RecordStatus.COMPLETED) {
+                return Optional.of(new StoredResponse(record.get().getRequestHash(),
+                        record.get().getResponseStatus(), record.get().getResponseBody()));
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+            }
+            sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+        } catch (ExecutionException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request");
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), responseType) : null;
+            return ResponseEntity.status(stored.status())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored idempotent response could not be read", ex);
+        }
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(writeJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Response could not be serialized", ex);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request");
+        }
+    }
+
+    private record StoredResponse(String requestHash, int status, String body) {
+    }
+}
@@ -0,0 +1,227 @@
+package com.banking.service;
+
+import com.banking.dto.DepositRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransferRequest;
+import com.banking.dto.WithdrawRequest;
+import com.banking.entity.Account;
+import com.banking.entity.AccountPosting;
+import com.banking.entity.Transaction;
+import com.banking.exception.BadRequestException;
+import com.banking.exception.InsufficientBalanceException;
+import com.banking.exception.ResourceNotFoundException;
+import com.banking.repository.AccountPostingRepository;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.LedgerJdbcRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.util.TransactionRefGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Posts each request in its own JPA transaction.
+ * <p>
+ * With {@code posting.lock-mode: OPTIMISTIC} (default) concurrent writers are detected by the
+ * {@code @Version} column of {@link Account}. With {@code PESSIMISTIC} the accounts are locked
+ * with {@code SELECT ... FOR UPDATE} in ascending id order before they are read, bounded by
+ * {@code posting.lock-timeout-ms}.
+ */
+@Service
+@RequiredArgsConstructor
+public class JpaPostingEngine implements PostingEngine {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerJdbcRepository ledgerRepository;
+    private final AccountPostingRepository accountPostingRepository;
+    private final DashboardStatistics dashboardStatistics;
+
+    @Value("${posting.lock-mode:OPTIMISTIC}")
+    private LockMode lockMode;
+
+    @Value("${posting.lock-timeout-ms:3000}")
+    private long lockTimeoutMs;
+
+    @Override
+    @Transactional
+    public TransactionResponse deposit(DepositRequest request) {
+        Account account = loadAccount(request.getAccountId())
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+
+        validateAccountOwnership(account);
+        validateAccountStatus(account);
+
+        // Create transaction
+        Transaction transaction = Transaction.builder()
+                .transactionRef(TransactionRefGenerator.generate())
+                .destinationAccount(account)
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .amount(request.getAmount())
+                .currency(account.getCurrency())
+                .description(request.getDescription())
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .build();
+
+        // Update account balance
+        account.credit(request.getAmount());
+
+        transactionRepository.save(transaction);
+        accountPostingRepository.saveAll(AccountPosting.legsOf(transaction));
+        accountRepository.save(account);
+        dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_DEPOSITS, request.getAmount());
+
+        return toResponse(transaction, account);
+    }
+
+    @Override
+    @Transactional
+    public TransactionResponse withdraw(WithdrawRequest request) {
+        Account account = loadAccount(request.getAccountId())
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+
+        validateAccountOwnership(account);
+        validateAccountStatus(account);
+
+        // Check sufficient balance
+        if (account.getBalance().compareTo(request.getAmount()) < 0) {
+            throw new InsufficientBalanceException("Insufficient balance for withdrawal");
+        }
+
+        // Create transaction
+        Transaction transaction = Transaction.builder()
+                .transactionRef(TransactionRefGenerator.generate())
+                .sourceAccount(account)
+                .transactionType(Transaction.TransactionType.WITHDRAWAL)
+                .amount(request.getAmount())
+                .currency(account.getCurrency())
+                .description(request.getDescription())
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .build();
+
+        // Update account balance
+        account.debit(request.getAmount());
+
+        transactionRepository.save(transaction);
+        accountPostingRepository.saveAll(AccountPosting.legsOf(transaction));
+        accountRepository.save(account);
+        dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_DEPOSITS, request.getAmount().negate());
+
+        return toResponse(transaction, account);
+    }
+
+    @Override
+    @Transactional
+    public TransactionResponse transfer(TransferRequest request) {
+        Map<Long, Account> lockedAccounts = Map.of();
+        Optional<Long> destinationAccountId = Optional.empty();
+        if (lockMode == LockMode.PESSIMISTIC) {
+            destinationAccountId = accountRepository.findIdByAccountNumber(request.getDestinationAccountNumber());
+            List<Long> accountIds = new ArrayList<>();
+            accountIds.add(request.getSourceAccountId());
+            destinationAccountId.ifPresent(accountIds::add);
+            lockedAccounts = lockAccounts(accountIds);
+        }
+
+        // Get source account
+        Account sourceAccount = (lockMode == LockMode.PESSIMISTIC
+                ? Optional.ofNullable(lockedAccounts.get(request.getSourceAccountId()))
+                : accountRepository.findById(request.getSourceAccountId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Source account not found"));
+
+        validateAccountOwnership(sourceAccount);
+        validateAccountStatus(sourceAccount);
+
+        // Get destination account
+        Account destinationAccount = (lockMode == LockMode.PESSIMISTIC
+                ? destinationAccountId.map(lockedAccounts::get)
+                : accountRepository.findByAccountNumber(request.getDestinationAccountNumber()))
+                .orElseThrow(() -> new ResourceNotFoundException("Destination account not found"));
+
+        validateAccountStatus(destinationAccount);
+
+        // Validate transfer
+        if (sourceAccount.getId().equals(destinationAccount.getId())) {
+            throw new BadRequestException("Cannot transfer to the same account");
+        }
+
+        if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
+            throw new InsufficientBalanceException("Insufficient balance for transfer");
+        }
+
+        // Create transaction
+        Transaction transaction = Transaction.builder()
+                .transactionRef(TransactionRefGenerator.generate())
+                .sourceAccount(sourceAccount)
+                .destinationAccount(destinationAccount)
+                .transactionType(Transaction.TransactionType.TRANSFER)
+                .amount(request.getAmount())
+                .currency(sourceAccount.getCurrency())
+                .description(request.getDescription())
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .build();
+
+        // Update balances
+        sourceAccount.debit(request.getAmount());
+        destinationAccount.credit(request.getAmount());
+
+        transactionRepository.save(transaction);
+        accountPostingRepository.saveAll(AccountPosting.legsOf(transaction));
+        accountRepository.save(sourceAccount);
+        accountRepository.save(destinationAccount);
+
+        return toResponse(transaction, sourceAccount);
+    }
+
+    private Optional<Account> loadAccount(Long accountId) {
+        if (lockMode == LockMode.PESSIMISTIC) {
+            return Optional.ofNullable(lockAccounts(List.of(accountId)).get(accountId));
+        }
+        return accountRepository.findById(accountId);
+    }
+
+    private Map<Long, Account> lockAccounts(List<Long> accountIds) {
+        ledgerRepository.setLocalLockTimeout(lockTimeoutMs);
+        return accountRepository.findAllByIdForUpdate(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+    }
+
+    private void validateAccountOwnership(Account account) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (!account.getUser().getEmail().equals(userEmail)) {
+            throw new BadRequestException("You don't have access to this account");
+        }
+    }
+
+    private void validateAccountStatus(Account account) {
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            throw new BadRequestException("Account is not active");
+        }
+    }
+
+    private TransactionResponse toResponse(Transaction transaction, Account account) {
+        return TransactionResponse.builder()
+                .transactionRef(transaction.getTransactionRef())
+                .accountId(account.getId())
+                .transactionType(transaction.getTransactionType())
+                .amount(transaction.getAmount())
+                .newBalance(account.getBalance())
+                .status(transaction.getStatus())
+                .timestamp(transaction.getCreatedAt())
+                .build();
+    }
+
+    public enum LockMode {
+        OPTIMISTIC,
+        PESSIMISTIC
+    }
+}
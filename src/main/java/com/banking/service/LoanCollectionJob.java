@@ -0,0 +1,374 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.entity.Loan;
+import com.banking.entity.Transaction;
+import com.banking.repository.LedgerJdbcRepository;
+import com.banking.repository.LedgerJdbcRepository.AccountSnapshot;
+import com.banking.repository.LedgerJdbcRepository.BalanceUpdate;
+import com.banking.repository.LedgerJdbcRepository.TransactionRow;
+import com.banking.repository.LoanCollectionJdbcRepository;
+import com.banking.repository.LoanCollectionJdbcRepository.CollectedLoan;
+import com.banking.repository.LoanCollectionJdbcRepository.DeferredLoan;
+import com.banking.repository.LoanCollectionJdbcRepository.DueLoan;
+import com.banking.repository.LoanCollectionJdbcRepository.Partition;
+import com.banking.repository.LoanCollectionJdbcRepository.RepaymentRow;
+import com.banking.util.PaymentRefGenerator;
+import com.banking.util.TransactionRefGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Daily auto-debit of due loan installments from each loan's linked account.
+ * <p>
+ * A run covers one collection date. Loans are split into {@code partitions} by account id, so
+ * all loans of an account are debited by the same worker, and {@code parallelism} workers on
+ * this node and others claim partitions with {@code SKIP LOCKED}. Each chunk is a single
+ * transaction: lock the next due loans and their accounts (loans first, accounts in id order),
+ * debit what each account can cover against running balances, and write the transactions,
+ * repayments, installment settlements and loan updates as batched, set-based statements
+ * before advancing the partition's checkpoint. A collected installment is marked paid in the
+ * same transaction, so a rerun or a second node finds nothing left to collect.
+ * <p>
+ * Loans whose account cannot cover everything due go to {@code loan_collection_retries} and
+ * are retried every {@code retry-interval-hours} until collected or out of attempts; the
+ * partition pass leaves queued loans to those retries.
+ */
+@Slf4j
+@Component
+public class LoanCollectionJob {
+
+    private final LoanCollectionJdbcRepository collectionRepository;
+    private final LedgerJdbcRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceCache balanceCache;
+    private final DashboardStatistics dashboardStatistics;
+    private final ExecutorService workers;
+    private final int parallelism;
+    private final int partitions;
+    private final int chunkSize;
+    private final long lockTimeoutMs;
+    private final Duration retryInterval;
+    private final int maxAttempts;
+    private final Timer chunkTimer;
+    private final Counter loansCollected;
+    private final Counter loansDeferred;
+
+    public LoanCollectionJob(LoanCollectionJdbcRepository collectionRepository,
+                             LedgerJdbcRepository ledgerRepository,
+                             TransactionTemplate transactionTemplate,
+                             BalanceCache balanceCache,
+                             DashboardStatistics dashboardStatistics,
+                             MeterRegistry meterRegistry,
+                             @Value("${loan-collection.partitions:16}") int partitions,
+                             @Value("${loan-collection.parallelism:4}") int parallelism,
+                             @Value("${loan-collection.chunk-size:500}") int chunkSize,
+                             @Value("${loan-collection.lock-timeout-ms:3000}") long lockTimeoutMs,
+                             @Value("${loan-collection.retry-interval-hours:24}") long retryIntervalHours,
+                             @Value("${loan-collection.max-attempts:5}") int maxAttempts) {
+        this.collectionRepository = collectionRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceCache = balanceCache;
+        this.dashboardStatistics = dashboardStatistics;
+        this.partitions = Math.max(1, partitions);
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.retryInterval = Duration.ofHours(retryIntervalHours);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.chunkTimer = Timer.builder("loan.collection.chunk").register(meterRegistry);
+        this.loansCollected = Counter.builder("loan.collection.collected").register(meterRegistry);
+        this.loansDeferred = Counter.builder("loan.collection.deferred").register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "loan-collection-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Finishes any interrupted run, collects what is due today, then works the retry queue.
+     */
+    @Scheduled(cron = "${loan-collection.cron:0 0 6 * * *}")
+    public void collectDaily() {
+        for (LocalDate incomplete : collectionRepository.findIncompleteRuns()) {
+            run(incomplete);
+        }
+        run(LocalDate.now());
+        retryDeferred();
+    }
+
+    /**
+     * Collects every installment due by {@code collectionDate}; returns the number of loans
+     * this call collected (zero when the date is already complete).
+     */
+    public long run(LocalDate collectionDate) {
+        collectionRepository.startRun(collectionDate, partitions);
+
+        long started = System.nanoTime();
+        List<Future<Long>> results = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            results.add(workers.submit(() -> work(collectionDate)));
+        }
+
+        long collected = 0;
+        for (Future<Long> result : results) {
+            try {
+                collected += result.get();
+            } catch (ExecutionException ex) {
+                // The failed chunk rolled back; its partition resumes on the next trigger
+                log.error("Loan collection worker for {} failed", collectionDate, ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while collecting loan installments");
+            }
+        }
+
+        long nanos = System.nanoTime() - started;
+        log.info("Loan collection {} finished: {} loans collected in {} ms", collectionDate, collected,
+                TimeUnit.NANOSECONDS.toMillis(nanos));
+        return collected;
+    }
+
+    /**
+     * Retries queued loans whose next attempt is due, against everything due today. The queue
+     * is walked in loan id order and, like a partition chunk, each chunk locks its loans before
+     * their queue entries. Loans are locked with {@code SKIP LOCKED}, so nodes retrying at once
+     * split the queue.
+     */
+    public long retryDeferred() {
+        long collected = 0;
+        long afterLoanId = 0;
+        while (true) {
+            long cursor = afterLoanId;
+            RetryChunk chunk = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> candidates = collectionRepository.findDueRetries(now, cursor, chunkSize);
+                if (candidates.isEmpty()) {
+                    return null;
+                }
+                long lastLoanId = candidates.get(candidates.size() - 1);
+                List<Long> locked = collectionRepository.lockLoans(candidates);
+                if (locked.isEmpty()) {
+                    return new RetryChunk(lastLoanId, new ChunkOutcome(0, BigDecimal.ZERO, 0));
+                }
+                List<Long> queued = collectionRepository.lockDueRetries(locked, now);
+                if (queued.isEmpty()) {
+                    return new RetryChunk(lastLoanId, new ChunkOutcome(0, BigDecimal.ZERO, 0));
+                }
+                ledgerRepository.setLocalLockTimeout(lockTimeoutMs);
+                List<DueLoan> due = collectionRepository.lockDueLoans(queued, now.toLocalDate());
+                ChunkOutcome result = collect(due, now.toLocalDate());
+
+                // Paid by the customer in the meantime, or no longer collectable
+                Set<Long> stillDue = new HashSet<>();
+                due.forEach(loan -> stillDue.add(loan.loanId()));
+                long[] resolved = queued.stream().filter(id -> !stillDue.contains(id)).mapToLong(Long::longValue).toArray();
+                if (resolved.length > 0) {
+                    collectionRepository.removeRetries(resolved);
+                }
+                return new RetryChunk(lastLoanId, result);
+            });
+            if (chunk == null) {
+                log.info("Loan collection retries finished: {} loans collected", collected);
+                return collected;
+            }
+            record(chunk.outcome());
+            collected += chunk.outcome().collected();
+            afterLoanId = chunk.lastLoanId();
+        }
+    }
+
+    // Processes chunks of whichever partitions are free until none are left
+    private long work(LocalDate collectionDate) {
+        long collected = 0;
+        while (true) {
+            long chunkStarted = System.nanoTime();
+            PartitionChunk chunk = transactionTemplate.execute(status -> processChunk(collectionDate));
+            if (chunk == null) {
+                return collected;
+            }
+            long chunkNanos = System.nanoTime() - chunkStarted;
+            chunkTimer.record(chunkNanos, TimeUnit.NANOSECONDS);
+            record(chunk.outcome());
+            collected += chunk.outcome().collected();
+            log.debug("Loan collection {} partition {}: {} collected, {} deferred up to loan {} in {} ms",
+                    collectionDate, chunk.partitionNo(), chunk.outcome().collected(), chunk.outcome().deferred(),
+                    chunk.lastLoanId(), TimeUnit.NANOSECONDS.toMillis(chunkNanos));
+        }
+    }
+
+    // Null once no unfinished partition is free
+    private PartitionChunk processChunk(LocalDate collectionDate) {
+        Optional<Partition> claimed = collectionRepository.claimPartition(collectionDate);
+        if (claimed.isEmpty()) {
+            return null;
+        }
+        Partition partition = claimed.get();
+
+        ledgerRepository.setLocalLockTimeout(lockTimeoutMs);
+        List<DueLoan> due = collectionRepository.lockDueLoans(partition, collectionDate, chunkSize);
+        ChunkOutcome outcome = collect(due, collectionDate);
+
+        boolean completed = due.size() < chunkSize;
+        long lastLoanId = due.isEmpty() ? partition.lastLoanId() : due.get(due.size() - 1).loanId();
+        collectionRepository.advancePartition(collectionDate, partition.partitionNo(), lastLoanId,
+                outcome.collected(), outcome.amount(), outcome.deferred(), completed);
+        return new PartitionChunk(partition.partitionNo(), lastLoanId, outcome);
+    }
+
+    /**
+     * Debits the linked accounts of already locked due loans, in loan id order against
+     * running balances, and writes everything that was collected. Loans an account cannot
+     * cover in full are queued for retry instead.
+     */
+    private ChunkOutcome collect(List<DueLoan> due, LocalDate collectionDate) {
+        if (due.isEmpty()) {
+            return new ChunkOutcome(0, BigDecimal.ZERO, 0);
+        }
+
+        Map<Long, CollectionAccount> accounts = new HashMap<>();
+        for (AccountSnapshot snapshot : ledgerRepository.lockAccountsById(
+                due.stream().map(DueLoan::accountId).distinct().toList())) {
+            accounts.put(snapshot.id(), new CollectionAccount(snapshot));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TransactionRow> transactions = new ArrayList<>();
+        List<RepaymentRow> repayments = new ArrayList<>();
+        List<CollectedLoan> collected = new ArrayList<>();
+        List<DeferredLoan> deferred = new ArrayList<>();
+        BigDecimal principalTotal = BigDecimal.ZERO;
+        BigDecimal amountTotal = BigDecimal.ZERO;
+        int closed = 0;
+
+        for (DueLoan loan : due) {
+            CollectionAccount account = accounts.get(loan.accountId());
+            BigDecimal amount = loan.amount();
+            if (account == null || account.snapshot.status() != Account.AccountStatus.ACTIVE) {
+                deferred.add(new DeferredLoan(loan.loanId(), amount, "Account is not active"));
+                continue;
+            }
+            if (account.balance.compareTo(amount) < 0) {
+                deferred.add(new DeferredLoan(loan.loanId(), amount, "Insufficient balance for repayment"));
+                continue;
+            }
+
+            account.debit(amount);
+            String paymentRef = PaymentRefGenerator.generate();
+            transactions.add(new TransactionRow(
+                    TransactionRefGenerator.generate(),
+                    loan.accountId(),
+                    null,
+                    Transaction.TransactionType.WITHDRAWAL,
+                    amount,
+                    account.snapshot.currency(),
+                    "Loan repayment " + loan.loanNumber() + " (" + paymentRef + ")",
+                    Transaction.TransactionStatus.COMPLETED,
+                    now
+            ));
+            repayments.add(new RepaymentRow(loan.loanId(), paymentRef, loan.principal(), loan.interest(), now));
+            collected.add(new CollectedLoan(loan.loanId(), loan.principal(), loan.interest(), loan.lastInstallment() + 1));
+            principalTotal = principalTotal.add(loan.principal());
+            amountTotal = amountTotal.add(amount);
+            if (loan.outstandingBalance().compareTo(loan.principal()) == 0) {
+                closed++;
+            }
+        }
+
+        if (!collected.isEmpty()) {
+            long[] loanIds = collected.stream().mapToLong(CollectedLoan::loanId).toArray();
+            collectionRepository.settleInstallments(loanIds, collectionDate, now);
+            collectionRepository.updateLoans(collected, now);
+            collectionRepository.insertRepayments(repayments);
+            ledgerRepository.insertTransactions(transactions);
+
+            List<BalanceUpdate> updates = accounts.values().stream()
+                    .filter(account -> account.changed)
+                    .map(account -> new BalanceUpdate(account.snapshot.id(), account.balance, account.snapshot.version()))
+                    .toList();
+            if (ledgerRepository.updateBalances(updates) > 0) {
+                throw new OptimisticLockingFailureException("Accounts were modified concurrently, please retry");
+            }
+            collectionRepository.removeRetries(loanIds);
+
+            balanceCache.supersedeOnCommit(updates.stream()
+                    .collect(Collectors.toMap(BalanceUpdate::accountId, BalanceUpdate::writtenVersion)));
+            dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_DEPOSITS, amountTotal.negate());
+            dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_LOANS, principalTotal.negate());
+            for (int i = 0; i < closed; i++) {
+                dashboardStatistics.loanStatusChanged(Loan.LoanStatus.ACTIVE, Loan.LoanStatus.CLOSED);
+            }
+        }
+        if (!deferred.isEmpty()) {
+            collectionRepository.enqueueRetries(deferred, collectionDate, now.plus(retryInterval), maxAttempts);
+        }
+
+        return new ChunkOutcome(collected.size(), amountTotal, deferred.size());
+    }
+
+    private void record(ChunkOutcome outcome) {
+        loansCollected.increment(outcome.collected());
+        loansDeferred.increment(outcome.deferred());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static final class CollectionAccount {
+        private final AccountSnapshot snapshot;
+        private BigDecimal balance;
+        private boolean changed;
+
+        private CollectionAccount(AccountSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.balance = snapshot.balance();
+        }
+
+        private void debit(BigDecimal amount) {
+            balance = balance.subtract(amount);
+            changed = true;
+        }
+    }
+
+    private record ChunkOutcome(int collected, BigDecimal amount, int deferred) {
+    }
+
+    private record PartitionChunk(int partitionNo, long lastLoanId, ChunkOutcome outcome) {
+    }
+
+    private record RetryChunk(long lastLoanId, ChunkOutcome outcome) {
+    }
+}
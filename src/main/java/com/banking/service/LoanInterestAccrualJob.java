@@ -0,0 +1,133 @@
+package com.banking.service;
+
+import com.banking.repository.LoanAccrualJdbcRepository;
+import com.banking.repository.LoanAccrualJdbcRepository.ActiveLoan;
+import com.banking.repository.LoanAccrualJdbcRepository.Checkpoint;
+import com.banking.util.LoanCalculator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Nightly interest accrual over every ACTIVE loan.
+ * <p>
+ * A run covers one accrual date and walks the active loans in id order, {@code chunk-size} at a
+ * time. Each chunk is a single transaction: lock the date's checkpoint, read the next loans after
+ * it, compute their accruals on a dedicated fork-join pool, batch-insert them and advance the
+ * checkpoint. A run that dies part-way resumes after its last committed chunk on the next trigger,
+ * and nodes running the job at the same time take turns on the checkpoint instead of repeating
+ * work. Every chunk logs its throughput and is timed under {@code loan.accrual.chunk}.
+ */
+@Slf4j
+@Component
+public class LoanInterestAccrualJob {
+
+    private final LoanAccrualJdbcRepository accrualRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final Timer chunkTimer;
+    private final Counter loansAccrued;
+
+    public LoanInterestAccrualJob(LoanAccrualJdbcRepository accrualRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${loan-accrual.chunk-size:10000}") int chunkSize,
+                                  @Value("${loan-accrual.parallelism:0}") int parallelism) {
+        this.accrualRepository = accrualRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkTimer = Timer.builder("loan.accrual.chunk").register(meterRegistry);
+        this.loansAccrued = Counter.builder("loan.accrual.loans").register(meterRegistry);
+    }
+
+    /**
+     * Finishes any interrupted run, then accrues the previous day.
+     */
+    @Scheduled(cron = "${loan-accrual.cron:0 30 0 * * *}")
+    public void accrueDaily() {
+        for (LocalDate incomplete : accrualRepository.findIncompleteRuns()) {
+            run(incomplete);
+        }
+        run(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Accrues one day of interest for every active loan; returns the number of loans this call
+     * processed (zero when the date is already complete).
+     */
+    public long run(LocalDate accrualDate) {
+        accrualRepository.startRun(accrualDate);
+        long started = System.nanoTime();
+        long processed = 0;
+        while (true) {
+            long chunkStarted = System.nanoTime();
+            ChunkResult chunk = transactionTemplate.execute(status -> processChunk(accrualDate));
+            if (chunk == null) {
+                break;
+            }
+            long chunkNanos = System.nanoTime() - chunkStarted;
+            chunkTimer.record(chunkNanos, TimeUnit.NANOSECONDS);
+            loansAccrued.increment(chunk.loans());
+            processed += chunk.loans();
+            log.info("Accrual {}: {} loans up to id {} in {} ms ({} loans/s)", accrualDate, chunk.loans(),
+                    chunk.lastLoanId(), TimeUnit.NANOSECONDS.toMillis(chunkNanos), perSecond(chunk.loans(), chunkNanos));
+            if (chunk.completed()) {
+                break;
+            }
+        }
+        long nanos = System.nanoTime() - started;
+        log.info("Accrual {} finished: {} loans in {} ms ({} loans/s)", accrualDate, processed,
+                TimeUnit.NANOSECONDS.toMillis(nanos), perSecond(processed, nanos));
+        return processed;
+    }
+
+    // Null once the date is complete
+    private ChunkResult processChunk(LocalDate accrualDate) {
+        Optional<Checkpoint> checkpoint = accrualRepository.lockRun(accrualDate);
+        if (checkpoint.isEmpty() || checkpoint.get().completed()) {
+            return null;
+        }
+
+        List<ActiveLoan> loans = accrualRepository.findActiveLoansAfter(checkpoint.get().lastLoanId(), accrualDate, chunkSize);
+        long[] amounts = new long[loans.size()];
+        long total = pool.submit(() -> IntStream.range(0, amounts.length).parallel()
+                .mapToLong(i -> amounts[i] = LoanCalculator.calculateDailyInterestMicros(
+                        loans.get(i).balanceCents(), loans.get(i).rateBasisPoints()))
+                .sum()).join();
+
+        boolean completed = loans.size() < chunkSize;
+        long lastLoanId = loans.isEmpty() ? checkpoint.get().lastLoanId() : loans.get(loans.size() - 1).id();
+        if (!loans.isEmpty()) {
+            accrualRepository.insertAccruals(accrualDate, loans, amounts);
+        }
+        accrualRepository.advanceRun(accrualDate, lastLoanId, loans.size(), total, completed);
+        return new ChunkResult(loans.size(), lastLoanId, completed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static long perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1_000_000_000L / nanos;
+    }
+
+    private record ChunkResult(int loans, long lastLoanId, boolean completed) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.banking.service;
+
+import com.banking.entity.Loan;
+import com.banking.entity.LoanInstallment;
+import com.banking.exception.BadRequestException;
+import com.banking.exception.ResourceNotFoundException;
+import com.banking.repository.LoanInstallmentRepository;
+import com.banking.util.LoanCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes a loan's amortization schedule at disbursement and settles repayments against it.
+ * <p>
+ * A repayment starts at {@link Loan#getNextInstallment()} and pays each installment's interest,
+ * then its principal, moving the pointer past every installment it completes. It settles the
+ * current installment and any others already due; what is left over is a prepayment of
+ * principal, after which the remaining installments are re-amortized over the same dates, so
+ * paying the outstanding principal plus what is due closes the loan. A regular monthly payment
+ * therefore reads and updates one or two installments, however long the loan runs; only a
+ * prepayment rewrites the rest of the schedule.
+ * Concurrent repayments of one loan conflict on the loan's {@code @Version}, which guards the pointer.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanScheduleService {
+
+    private final LoanInstallmentRepository loanInstallmentRepository;
+
+    public void createSchedule(Loan loan, LocalDate startDate) {
+        List<LoanInstallment> installments = LoanCalculator.buildSchedule(
+                        loan.getPrincipalAmount(), loan.getInterestRate(), loan.getTermMonths(), startDate)
+                .stream()
+                .map(scheduled -> LoanInstallment.builder()
+                        .loanId(loan.getId())
+                        .installmentNumber(scheduled.number())
+                        .dueDate(scheduled.dueDate())
+                        .principalDue(scheduled.principal())
+                        .interestDue(scheduled.interest())
+                        .build())
+                .toList();
+
+        loanInstallmentRepository.saveAll(installments);
+        loan.setNextInstallment(1);
+    }
+
+    public List<LoanInstallment> getSchedule(Loan loan) {
+        if (loan.getNextInstallment() == null) {
+            throw new ResourceNotFoundException("Loan has no repayment schedule");
+        }
+        return loanInstallmentRepository.findByLoanIdOrderByInstallmentNumber(loan.getId());
+    }
+
+    /**
+     * Settles {@code amount} against the loan's open installments and advances its pointer.
+     * An amount larger than what is due plus the outstanding principal is rejected; the
+     * caller's transaction then rolls back the installments already touched.
+     */
+    public Allocation allocate(Loan loan, BigDecimal amount) {
+        LoanInstallment current = load(loan, loan.getNextInstallment());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        BigDecimal remaining = amount;
+        BigDecimal principalPaid = BigDecimal.ZERO;
+        BigDecimal interestPaid = BigDecimal.ZERO;
+        while (true) {
+            BigDecimal interest = remaining.min(current.getInterestOutstanding());
+            remaining = remaining.subtract(interest);
+            BigDecimal principal = remaining.min(current.getPrincipalOutstanding());
+            remaining = remaining.subtract(principal);
+
+            current.setInterestPaid(current.getInterestPaid().add(interest));
+            current.setPrincipalPaid(current.getPrincipalPaid().add(principal));
+            interestPaid = interestPaid.add(interest);
+            principalPaid = principalPaid.add(principal);
+
+            boolean settled = current.getInterestOutstanding().signum() == 0
+                    && current.getPrincipalOutstanding().signum() == 0;
+            if (settled) {
+                current.setStatus(LoanInstallment.InstallmentStatus.PAID);
+                current.setPaidDate(now);
+                loan.setNextInstallment(current.getInstallmentNumber() + 1);
+            } else if (interest.signum() > 0 || principal.signum() > 0) {
+                current.setStatus(LoanInstallment.InstallmentStatus.PARTIALLY_PAID);
+            }
+
+            if (remaining.signum() == 0) {
+                break;
+            }
+            if (current.getInstallmentNumber() >= loan.getTermMonths()) {
+                throw new BadRequestException("Payment amount exceeds outstanding balance");
+            }
+            LoanInstallment next = load(loan, loan.getNextInstallment());
+            if (next.getDueDate().isAfter(today)) {
+                prepay(loan, current, remaining, now);
+                principalPaid = principalPaid.add(remaining);
+                break;
+            }
+            current = next;
+        }
+
+        return new Allocation(principalPaid, interestPaid);
+    }
+
+    /**
+     * Pays {@code principal} off the installments after {@code settled}, recording it on
+     * {@code settled}, and re-amortizes them over their due dates at the loan's rate. Paying
+     * all of it off settles them, with no further interest.
+     */
+    private void prepay(Loan loan, LoanInstallment settled, BigDecimal principal, LocalDateTime now) {
+        List<LoanInstallment> rest = loanInstallmentRepository.findByLoanIdOrderByInstallmentNumber(loan.getId())
+                .stream()
+                .filter(installment -> installment.getInstallmentNumber() > settled.getInstallmentNumber())
+                .toList();
+        BigDecimal restPrincipal = rest.stream()
+                .map(LoanInstallment::getPrincipalOutstanding)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (principal.compareTo(restPrincipal) > 0) {
+            throw new BadRequestException("Payment amount exceeds the amount due plus the outstanding principal");
+        }
+
+        settled.setPrincipalDue(settled.getPrincipalDue().add(principal));
+        settled.setPrincipalPaid(settled.getPrincipalPaid().add(principal));
+
+        BigDecimal left = restPrincipal.subtract(principal);
+        if (left.signum() == 0) {
+            for (LoanInstallment installment : rest) {
+                installment.setPrincipalDue(installment.getPrincipalPaid());
+                installment.setInterestDue(installment.getInterestPaid());
+                installment.setStatus(LoanInstallment.InstallmentStatus.PAID);
+                installment.setPaidDate(now);
+            }
+            loan.setNextInstallment(loan.getTermMonths() + 1);
+            return;
+        }
+
+        List<LoanCalculator.ScheduledInstallment> schedule =
+                LoanCalculator.buildSchedule(left, loan.getInterestRate(), rest.size(), now.toLocalDate());
+        for (int i = 0; i < rest.size(); i++) {
+            rest.get(i).setPrincipalDue(schedule.get(i).principal());
+            rest.get(i).setInterestDue(schedule.get(i).interest());
+        }
+        loan.setMonthlyPayment(LoanCalculator.calculateMonthlyPayment(left, loan.getInterestRate(), rest.size()));
+    }
+
+    private LoanInstallment load(Loan loan, int installmentNumber) {
+        return loanInstallmentRepository.findById(new LoanInstallment.InstallmentId(loan.getId(), installmentNumber))
+                .orElseThrow(() -> new ResourceNotFoundException("Loan installment not found"));
+    }
+
+    public record Allocation(BigDecimal principal, BigDecimal interest) {
+    }
+}
@@ -6,10 +6,12 @@ import com.banking.exception.BadRequestException;
 import com.banking.exception.ResourceNotFoundException;
 import com.banking.exception.UnauthorizedException;
 import com.banking.repository.*;
+import com.banking.util.KeysetCursor;
 import com.banking.util.LoanCalculator;
 import com.banking.util.LoanNumberGenerator;
 import com.banking.util.PaymentRefGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +30,9 @@ public class LoanService {
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final LoanRepaymentRepository loanRepaymentRepository;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final DashboardStatistics dashboardStatistics;
+    private final LoanScheduleService loanScheduleService;
 
     @Transactional
     public LoanApplicationResponse applyForLoan(LoanApplicationRequest request) {
@@ -71,6 +76,7 @@ public class LoanService {
                 .build();
 
         Loan savedLoan = loanRepository.save(loan);
+        dashboardStatistics.loanStatusChanged(null, Loan.LoanStatus.PENDING);
 
         return LoanApplicationResponse.builder()
                 .loanNumber(savedLoan.getLoanNumber())
@@ -105,28 +111,39 @@ public class LoanService {
         return mapToDto(loan);
     }
 
-    @Transactional
     public LoanRepaymentResponse makeLoanRepayment(Long loanId, LoanRepaymentRequest request) {
+        return retryExecutor.executeInTransaction("loans.repay", () -> applyLoanRepayment(loanId, request));
+    }
+
+    private LoanRepaymentResponse applyLoanRepayment(Long loanId, LoanRepaymentRequest request) {
         Loan loan = getLoanAndValidateOwnership(loanId);
 
         if (loan.getStatus() != Loan.LoanStatus.ACTIVE) {
             throw new BadRequestException("Loan is not active");
         }
 
-        if (request.getAmount().compareTo(loan.getOutstandingBalance()) > 0) {
-            throw new BadRequestException("Payment amount exceeds outstanding balance");
+        BigDecimal principalPortion;
+        BigDecimal interestPortion;
+        if (loan.getNextInstallment() != null) {
+            // Settle against the persisted schedule
+            LoanScheduleService.Allocation allocation = loanScheduleService.allocate(loan, request.getAmount());
+            principalPortion = allocation.principal();
+            interestPortion = allocation.interest();
+        } else {
+            // Loans disbursed before schedules existed
+            if (request.getAmount().compareTo(loan.getOutstandingBalance()) > 0) {
+                throw new BadRequestException("Payment amount exceeds outstanding balance");
+            }
+
+            BigDecimal[] portions = LoanCalculator.calculatePaymentPortions(
+                    request.getAmount(),
+                    loan.getOutstandingBalance(),
+                    loan.getInterestRate()
+            );
+            principalPortion = portions[0];
+            interestPortion = portions[1];
         }
 
-        // Calculate principal and interest portions
-        BigDecimal[] portions = LoanCalculator.calculatePaymentPortions(
-                request.getAmount(),
-                loan.getOutstandingBalance(),
-                loan.getInterestRate()
-        );
-
-        BigDecimal principalPortion = portions[0];
-        BigDecimal interestPortion = portions[1];
-
         // Create repayment record
         LoanRepayment repayment = LoanRepayment.builder()
                 .loan(loan)
@@ -141,12 +158,16 @@ public class LoanService {
         // Update loan balance
         loan.setOutstandingBalance(loan.getOutstandingBalance().subtract(principalPortion));
 
+        dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_LOANS, principalPortion.negate());
+
         // Check if loan is fully paid
         if (loan.getOutstandingBalance().compareTo(BigDecimal.ZERO) == 0) {
             loan.setStatus(Loan.LoanStatus.CLOSED);
+            dashboardStatistics.loanStatusChanged(Loan.LoanStatus.ACTIVE, Loan.LoanStatus.CLOSED);
         }
 
         loanRepaymentRepository.save(repayment);
+        loan.recordRepayment(repayment);
         loanRepository.save(loan);
 
         return LoanRepaymentResponse.builder()
@@ -158,22 +179,59 @@ public class LoanService {
                 .build();
     }
 
+    /**
+     * One page of a loan's repayments, newest first, with the loan's running totals. An empty
+     * cursor starts at the latest repayment.
+     */
     @Transactional(readOnly = true)
-    public LoanRepaymentListResponse getLoanRepayments(Long loanId) {
+    public LoanRepaymentListResponse getLoanRepayments(Long loanId, String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
         Loan loan = getLoanAndValidateOwnership(loanId);
 
-        List<LoanRepaymentDto> repayments = loanRepaymentRepository.findRepaymentsForLoan(loanId)
-                .stream()
-                .map(this::mapRepaymentToDto)
-                .collect(Collectors.toList());
+        KeysetCursor position = cursor == null || cursor.isEmpty()
+                ? KeysetCursor.startingAt(KeysetCursor.LATEST)
+                : KeysetCursor.decode(cursor);
 
-        BigDecimal totalRepaid = loanRepaymentRepository.getTotalRepaidAmount(loanId);
-        if (totalRepaid == null) totalRepaid = BigDecimal.ZERO;
+        // One extra row tells whether another page follows
+        List<LoanRepayment> rows = loanRepaymentRepository.findPageForLoan(
+                loanId, position.createdAt(), position.id(), PageRequest.ofSize(size + 1));
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            LoanRepayment last = rows.get(size - 1);
+            nextCursor = new KeysetCursor(last.getPaymentDate(), last.getId()).encode();
+        }
 
         return LoanRepaymentListResponse.builder()
-                .repayments(repayments)
-                .totalRepaid(totalRepaid)
+                .repayments(rows.stream().map(this::mapRepaymentToDto).collect(Collectors.toList()))
+                .totalRepaid(loan.getTotalRepaid())
+                .totalInterestPaid(loan.getTotalInterestPaid())
+                .lastPaymentDate(loan.getLastPaymentDate())
+                .repaymentCount(loan.getRepaymentCount())
                 .remainingBalance(loan.getOutstandingBalance())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public LoanScheduleResponse getLoanSchedule(Long loanId) {
+        Loan loan = getLoanAndValidateOwnership(loanId);
+        LocalDate today = LocalDate.now();
+
+        List<LoanInstallmentDto> installments = loanScheduleService.getSchedule(loan)
+                .stream()
+                .map(installment -> mapInstallmentToDto(installment, today))
+                .collect(Collectors.toList());
+
+        return LoanScheduleResponse.builder()
+                .loanNumber(loan.getLoanNumber())
+                .monthlyPayment(loan.getMonthlyPayment())
+                .outstandingBalance(loan.getOutstandingBalance())
+                .nextInstallment(loan.getNextInstallment() > loan.getTermMonths() ? null : loan.getNextInstallment())
+                .installments(installments)
                 .build();
     }
 
@@ -226,4 +284,21 @@ public class LoanService {
                 .status(repayment.getStatus())
                 .build();
     }
-}
\ No newline at end of file
+
+    private LoanInstallmentDto mapInstallmentToDto(LoanInstallment installment, LocalDate today) {
+        boolean paid = installment.getStatus() == LoanInstallment.InstallmentStatus.PAID;
+        return LoanInstallmentDto.builder()
+                .installmentNumber(installment.getInstallmentNumber())
+                .dueDate(installment.getDueDate())
+                .principalDue(installment.getPrincipalDue())
+                .interestDue(installment.getInterestDue())
+                .totalDue(installment.getPrincipalDue().add(installment.getInterestDue()))
+                .principalPaid(installment.getPrincipalPaid())
+                .interestPaid(installment.getInterestPaid())
+                .amountOutstanding(installment.getPrincipalOutstanding().add(installment.getInterestOutstanding()))
+                .status(installment.getStatus())
+                .overdue(!paid && installment.getDueDate().isBefore(today))
+                .paidDate(installment.getPaidDate())
+                .build();
+    }
+}
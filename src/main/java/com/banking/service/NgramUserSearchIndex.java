@@ -0,0 +1,164 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.entity.User;
+import com.banking.repository.UserSearchJdbcRepository;
+import com.banking.repository.UserSearchJdbcRepository.UserMatch;
+import com.banking.util.SearchCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process inverted index from character trigrams to user ids, for setups without pg_trgm.
+ * <p>
+ * Built from the database once the application is ready and kept current by the register and
+ * open-account paths after their transactions commit. Candidates are the intersection of the
+ * posting lists of the term's trigrams, then checked for the full substring; terms shorter
+ * than a trigram scan every document. Changes made on other nodes are not seen until restart.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "user-search.engine", havingValue = "ngram")
+@RequiredArgsConstructor
+public class NgramUserSearchIndex implements UserSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final UserSearchJdbcRepository userSearchRepository;
+
+    private final Map<Long, String> documents = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<String, Long> accountOwners = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        userSearchRepository.forEachSearchText(this::index);
+        userSearchRepository.forEachAccountNumber(accountOwners::put);
+        log.info("Indexed {} users and {} accounts for search", documents.size(), accountOwners.size());
+    }
+
+    @Override
+    public List<UserMatch> search(String term, SearchCursor after, int limit) {
+        String needle = term.toLowerCase(Locale.ROOT);
+        Map<Long, Float> scores = new HashMap<>();
+
+        Long accountOwner = accountOwners.get(term.toUpperCase(Locale.ROOT));
+        if (accountOwner != null) {
+            scores.put(accountOwner, 1f);
+        }
+        for (Long userId : candidates(needle)) {
+            String text = documents.get(userId);
+            int position = text == null ? -1 : text.indexOf(needle);
+            if (position >= 0) {
+                scores.merge(userId, score(text, needle, position), Math::max);
+            }
+        }
+
+        return scores.entrySet().stream()
+                .filter(entry -> after.isAfter(entry.getValue(), entry.getKey()))
+                .map(entry -> new UserMatch(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(UserMatch::score).reversed().thenComparing(UserMatch::userId))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void userSaved(User user) {
+        Long userId = user.getId();
+        String text = (user.getFirstName() + ' ' + user.getLastName() + ' ' + user.getEmail()).toLowerCase(Locale.ROOT);
+        afterCommit(() -> index(userId, text));
+    }
+
+    @Override
+    public void accountSaved(Account account) {
+        String accountNumber = account.getAccountNumber();
+        Long userId = account.getUser().getId();
+        afterCommit(() -> accountOwners.put(accountNumber, userId));
+    }
+
+    private synchronized void index(Long userId, String text) {
+        String previous = documents.put(userId, text);
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(userId);
+                }
+            }
+        }
+        for (String gram : grams(text)) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    private Collection<Long> candidates(String needle) {
+        if (needle.length() < GRAM) {
+            return documents.keySet();
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    // The share of the matched word covered by the term: a whole-word match scores 1
+    private static float score(String text, String needle, int position) {
+        int start = text.lastIndexOf(' ', position) + 1;
+        int end = text.indexOf(' ', position + needle.length());
+        if (end < 0) {
+            end = text.length();
+        }
+        return Math.min(1f, needle.length() / (float) (end - start));
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package com.banking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a whole posting when it loses an optimistic-lock race on a versioned entity.
+ * <p>
+ * Each attempt runs in a fresh transaction; between attempts the caller sleeps for a
+ * random time up to an exponentially growing cap ("full jitter"), so colliding writers
+ * spread out instead of colliding again. Per operation, {@code posting.retry.attempts}
+ * counts retried attempts and {@code posting.retry.exhausted} counts give-ups.
+ * <p>
+ * Inside an already running transaction the action is executed once: the stale state
+ * belongs to the outer transaction, which is the one that has to be retried.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticRetryExecutor(TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${retry.max-attempts:4}") int maxAttempts,
+                                   @Value("${retry.initial-backoff-ms:20}") long initialBackoffMs,
+                                   @Value("${retry.max-backoff-ms:500}") long maxBackoffMs) {
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Runs an action that opens its own transaction, e.g. a {@code @Transactional} bean method.
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    counter("posting.retry.exhausted", operation).increment();
+                    log.warn("Giving up on {} after {} optimistic-lock conflicts", operation, attempt);
+                    throw ex;
+                }
+                counter("posting.retry.attempts", operation).increment();
+                log.debug("Optimistic-lock conflict in {}, retrying (attempt {})", operation, attempt + 1);
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Runs an action in a new transaction per attempt.
+     */
+    public <T> T executeInTransaction(String operation, Supplier<T> action) {
+        return execute(operation, () -> transactionTemplate.execute(status -> action.get()));
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry");
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
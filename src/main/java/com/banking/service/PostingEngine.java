@@ -0,0 +1,32 @@
+package com.banking.service;
+
+import com.banking.dto.DepositRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransferRequest;
+import com.banking.dto.WithdrawRequest;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Applies money-moving postings to accounts.
+ * The implementation is selected with the {@code posting.engine} property:
+ * {@code jpa} (default) or {@code sharded}.
+ */
+public interface PostingEngine {
+
+    TransactionResponse deposit(DepositRequest request);
+
+    TransactionResponse withdraw(WithdrawRequest request);
+
+    TransactionResponse transfer(TransferRequest request);
+
+    /**
+     * The final outcome of a posting returned as PENDING under {@code transactionRef}: completes
+     * with its response once committed, or exceptionally if it was not. Empty when the engine
+     * never returns PENDING or no longer tracks the reference.
+     */
+    default Optional<CompletableFuture<TransactionResponse>> settlement(String transactionRef) {
+        return Optional.empty();
+    }
+}
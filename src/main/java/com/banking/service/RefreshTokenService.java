@@ -0,0 +1,188 @@
+package com.banking.service;
+
+import com.banking.entity.RefreshToken;
+import com.banking.exception.UnauthorizedException;
+import com.banking.repository.RefreshTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and rotates refresh tokens. Only the SHA-256 of a token is stored; the tokens are
+ * 256-bit random values, so a fast hash is enough and no BCrypt work is involved.
+ * <p>
+ * Token state is looked up through a bounded in-memory front before the {@code refresh_tokens}
+ * table. The conditional {@code markRotated} update stays the source of truth, so a token can
+ * be rotated only once across nodes. Using a rotated token again revokes its whole family.
+ * The front only learns about a rotation once it has committed, so a rotation that rolls back
+ * does not make the client's retry look like reuse.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository repository;
+    private final Duration lifetime;
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, TokenState> front;
+    // Hashes in the front per family, so revoking a family does not scan the whole front
+    private final Cache<String, Set<String>> frontHashesByFamily;
+
+    public RefreshTokenService(RefreshTokenRepository repository,
+                               @Value("${jwt.refresh-expiration}") long refreshExpirationMs,
+                               @Value("${jwt.refresh-cache-size:100000}") long cacheSize) {
+        this.repository = repository;
+        this.lifetime = Duration.ofMillis(refreshExpirationMs);
+        this.front = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(lifetime)
+                .build();
+        this.frontHashesByFamily = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterAccess(lifetime)
+                .build();
+    }
+
+    /**
+     * Starts a new token family for a fresh login.
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consumes a refresh token and returns its successor in the same family.
+     */
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public Rotation rotate(String rawToken) {
+        String tokenHash = hash(rawToken);
+        LocalDateTime now = LocalDateTime.now();
+
+        TokenState state = front.getIfPresent(tokenHash);
+        if (state == null) {
+            state = repository.findById(tokenHash)
+                    .map(TokenState::of)
+                    .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+        }
+        if (state.revoked()) {
+            throw new UnauthorizedException("Refresh token has been revoked");
+        }
+        if (state.expiresAt().isBefore(now)) {
+            throw new UnauthorizedException("Refresh token has expired");
+        }
+
+        if (state.rotated() || repository.markRotated(tokenHash, now) == 0) {
+            // The token was already exchanged once: whoever holds this family may have stolen it
+            log.warn("Refresh token reuse detected for user {}, revoking family {}", state.userId(), state.familyId());
+            revokeFamily(state.familyId());
+            throw new UnauthorizedException("Refresh token was already used; please log in again");
+        }
+        TokenState rotated = state.markRotated();
+        afterCommit(() -> cache(tokenHash, rotated));
+
+        return new Rotation(state.userId(), state.familyId(), issue(state.userId(), state.familyId()));
+    }
+
+    @Transactional
+    public void revokeFamily(String familyId) {
+        repository.revokeFamily(familyId, LocalDateTime.now());
+        Set<String> hashes = frontHashesByFamily.asMap().remove(familyId);
+        if (hashes != null) {
+            front.invalidateAll(hashes);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int removed = repository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            log.debug("Purged {} expired refresh tokens", removed);
+        }
+    }
+
+    public long getExpirationTime() {
+        return lifetime.toMillis();
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken token = RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .userId(userId)
+                .createdAt(now)
+                .expiresAt(now.plus(lifetime))
+                .build();
+        repository.save(token);
+        TokenState state = TokenState.of(token);
+        afterCommit(() -> cache(token.getTokenHash(), state));
+        return rawToken;
+    }
+
+    private void cache(String tokenHash, TokenState state) {
+        frontHashesByFamily.get(state.familyId(), familyId -> ConcurrentHashMap.newKeySet()).add(tokenHash);
+        front.put(tokenHash, state);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    public record Rotation(Long userId, String familyId, String refreshToken) {
+    }
+
+    private record TokenState(String familyId, Long userId, LocalDateTime expiresAt, boolean rotated, boolean revoked) {
+
+        private static TokenState of(RefreshToken token) {
+            return new TokenState(token.getFamilyId(), token.getUserId(), token.getExpiresAt(),
+                    token.getRotatedAt() != null, token.getRevokedAt() != null);
+        }
+
+        private TokenState markRotated() {
+            return new TokenState(familyId, userId, expiresAt, true, revoked);
+        }
+    }
+}
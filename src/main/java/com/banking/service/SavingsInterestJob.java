@@ -0,0 +1,274 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.repository.LedgerJdbcRepository;
+import com.banking.repository.LedgerJdbcRepository.TransactionRow;
+import com.banking.repository.SavingsInterestJdbcRepository;
+import com.banking.repository.SavingsInterestJdbcRepository.InterestBearingAccount;
+import com.banking.repository.SavingsInterestJdbcRepository.InterestPosting;
+import com.banking.repository.SavingsInterestJdbcRepository.Partition;
+import com.banking.util.TransactionRefGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monthly interest on SAVINGS and FIXED_DEPOSIT accounts, paid on the average daily balance.
+ * <p>
+ * A run covers one calendar month. Its interest-bearing accounts are split into
+ * {@code partitions} id ranges, each with its own checkpoint, and {@code parallelism} workers
+ * claim ranges with {@code SKIP LOCKED} and process them {@code chunk-size} accounts at a time.
+ * Each chunk is a single transaction: read the chunk's balance-days from the ledger, then write
+ * the interest rows, their transactions and postings, and the balance credits as batched,
+ * set-based statements before advancing the range's checkpoint.
+ * <p>
+ * Credits are relative and taken under row locks in id order, so they coexist with customer
+ * postings: each account is touched once per month, and a posting that read it earlier loses
+ * its version check and retries. When a chunk fails, its range rolls back to the last
+ * checkpoint and the run starts its workers again after {@code retry-backoff-ms}, doubling the
+ * wait each time, for up to {@code max-attempts} passes. Ranges still unfinished after that, or
+ * left by an interrupted run, resume on the next trigger.
+ */
+@Slf4j
+@Component
+public class SavingsInterestJob {
+
+    // Balance-days times a percentage rate, over an actual/365 year
+    private static final BigDecimal PERCENT_DAYS_PER_YEAR = BigDecimal.valueOf(36_500);
+
+    private final SavingsInterestJdbcRepository interestRepository;
+    private final LedgerJdbcRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceCache balanceCache;
+    private final DashboardStatistics dashboardStatistics;
+    private final ExecutorService workers;
+    private final int parallelism;
+    private final int partitions;
+    private final int chunkSize;
+    private final long lockTimeoutMs;
+    private final BigDecimal savingsRate;
+    private final BigDecimal fixedDepositRate;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final Timer chunkTimer;
+    private final Counter accountsCredited;
+
+    public SavingsInterestJob(SavingsInterestJdbcRepository interestRepository,
+                              LedgerJdbcRepository ledgerRepository,
+                              TransactionTemplate transactionTemplate,
+                              BalanceCache balanceCache,
+                              DashboardStatistics dashboardStatistics,
+                              MeterRegistry meterRegistry,
+                              @Value("${savings-interest.partitions:16}") int partitions,
+                              @Value("${savings-interest.parallelism:4}") int parallelism,
+                              @Value("${savings-interest.chunk-size:2000}") int chunkSize,
+                              @Value("${savings-interest.lock-timeout-ms:3000}") long lockTimeoutMs,
+                              @Value("${savings-interest.savings-rate:2.50}") BigDecimal savingsRate,
+                              @Value("${savings-interest.fixed-deposit-rate:5.00}") BigDecimal fixedDepositRate,
+                              @Value("${savings-interest.max-attempts:3}") int maxAttempts,
+                              @Value("${savings-interest.retry-backoff-ms:5000}") long retryBackoffMs) {
+        this.interestRepository = interestRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceCache = balanceCache;
+        this.dashboardStatistics = dashboardStatistics;
+        this.partitions = Math.max(1, partitions);
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.savingsRate = savingsRate;
+        this.fixedDepositRate = fixedDepositRate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.chunkTimer = Timer.builder("savings.interest.chunk").register(meterRegistry);
+        this.accountsCredited = Counter.builder("savings.interest.accounts").register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "savings-interest-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Finishes any interrupted month, then pays the previous one.
+     */
+    @Scheduled(cron = "${savings-interest.cron:0 0 2 1 * *}")
+    public void postMonthly() {
+        for (LocalDate incomplete : interestRepository.findIncompletePeriods()) {
+            run(incomplete);
+        }
+        run(YearMonth.now().minusMonths(1).atDay(1));
+    }
+
+    /**
+     * Pays interest for the month starting at {@code periodStart}; returns the number of
+     * accounts this call credited (zero when the month is already complete).
+     */
+    public long run(LocalDate periodStart) {
+        LocalDate periodEnd = periodStart.plusMonths(1);
+        interestRepository.startRun(periodStart, periodEnd, partitions);
+
+        long started = System.nanoTime();
+        long credited = 0;
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            List<Future<Long>> results = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                results.add(workers.submit(() -> work(periodStart, periodEnd)));
+            }
+
+            boolean failed = false;
+            for (Future<Long> result : results) {
+                try {
+                    credited += result.get();
+                } catch (ExecutionException ex) {
+                    // The failed chunk rolled back to its range's checkpoint
+                    failed = true;
+                    log.error("Savings interest worker for {} failed (pass {} of {})", periodStart, attempt,
+                            maxAttempts, ex.getCause());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while posting savings interest");
+                }
+            }
+            if (!failed) {
+                break;
+            }
+            if (attempt >= maxAttempts) {
+                log.warn("Savings interest {} still has failed ranges after {} passes; they resume on the next trigger",
+                        periodStart, attempt);
+                break;
+            }
+            sleep(backoffMs);
+            backoffMs *= 2;
+        }
+
+        long nanos = System.nanoTime() - started;
+        log.info("Savings interest {} finished: {} accounts credited in {} ms", periodStart, credited,
+                TimeUnit.NANOSECONDS.toMillis(nanos));
+        return credited;
+    }
+
+    // Processes chunks of whichever ranges are free until none are left
+    private long work(LocalDate periodStart, LocalDate periodEnd) {
+        long credited = 0;
+        while (true) {
+            long chunkStarted = System.nanoTime();
+            ChunkResult chunk = transactionTemplate.execute(status -> processChunk(periodStart, periodEnd));
+            if (chunk == null) {
+                return credited;
+            }
+            long chunkNanos = System.nanoTime() - chunkStarted;
+            chunkTimer.record(chunkNanos, TimeUnit.NANOSECONDS);
+            accountsCredited.increment(chunk.credited());
+            credited += chunk.credited();
+            log.debug("Savings interest {} partition {}: {} accounts read, {} credited up to id {} in {} ms",
+                    periodStart, chunk.partitionNo(), chunk.read(), chunk.credited(), chunk.lastAccountId(),
+                    TimeUnit.NANOSECONDS.toMillis(chunkNanos));
+        }
+    }
+
+    // Null once no unfinished range is free
+    private ChunkResult processChunk(LocalDate periodStart, LocalDate periodEnd) {
+        Optional<Partition> claimed = interestRepository.claimPartition(periodStart);
+        if (claimed.isEmpty()) {
+            return null;
+        }
+        Partition partition = claimed.get();
+
+        List<InterestBearingAccount> accounts =
+                interestRepository.findInterestBearingAccounts(partition, periodStart, periodEnd, chunkSize);
+        String description = "Interest for " + YearMonth.from(periodStart);
+        LocalDateTime now = LocalDateTime.now();
+        List<InterestPosting> postings = new ArrayList<>();
+        List<TransactionRow> rows = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (InterestBearingAccount account : accounts) {
+            BigDecimal rate = rateFor(account.accountType());
+            BigDecimal interest = account.balanceDays().multiply(rate)
+                    .divide(PERCENT_DAYS_PER_YEAR, 2, RoundingMode.HALF_UP);
+            if (interest.signum() <= 0) {
+                continue;
+            }
+            TransactionRow row = new TransactionRow(
+                    TransactionRefGenerator.generate(),
+                    null,
+                    account.id(),
+                    Transaction.TransactionType.DEPOSIT,
+                    interest,
+                    account.currency(),
+                    description,
+                    Transaction.TransactionStatus.COMPLETED,
+                    now
+            );
+            rows.add(row);
+            postings.add(new InterestPosting(account.id(), row.transactionRef(), account.balanceDays(), rate, interest));
+            total = total.add(interest);
+        }
+
+        boolean completed = accounts.size() < chunkSize;
+        long lastAccountId = completed || accounts.isEmpty()
+                ? partition.rangeEnd()
+                : accounts.get(accounts.size() - 1).id();
+
+        if (!postings.isEmpty()) {
+            long[] accountIds = postings.stream().mapToLong(InterestPosting::accountId).toArray();
+            BigDecimal[] amounts = postings.stream().map(InterestPosting::amount).toArray(BigDecimal[]::new);
+
+            ledgerRepository.setLocalLockTimeout(lockTimeoutMs);
+            interestRepository.insertPostings(periodStart, postings);
+            ledgerRepository.insertTransactions(rows);
+            balanceCache.supersedeOnCommit(ledgerRepository.creditBalances(accountIds, amounts));
+            dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_DEPOSITS, total);
+        }
+        interestRepository.advancePartition(periodStart, partition.partitionNo(), lastAccountId,
+                postings.size(), total, completed);
+        return new ChunkResult(partition.partitionNo(), accounts.size(), postings.size(), lastAccountId);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while posting savings interest");
+        }
+    }
+
+    private BigDecimal rateFor(Account.AccountType accountType) {
+        return accountType == Account.AccountType.FIXED_DEPOSIT ? fixedDepositRate : savingsRate;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private record ChunkResult(int partitionNo, int read, int credited, long lastAccountId) {
+    }
+}
@@ -0,0 +1,619 @@
+package com.banking.service;
+
+import com.banking.dto.DepositRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransferRequest;
+import com.banking.dto.WithdrawRequest;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.exception.BadRequestException;
+import com.banking.exception.InsufficientBalanceException;
+import com.banking.exception.ResourceNotFoundException;
+import com.banking.repository.LedgerJdbcRepository;
+import com.banking.repository.LedgerJdbcRepository.AccountSnapshot;
+import com.banking.repository.LedgerJdbcRepository.BalanceUpdate;
+import com.banking.repository.LedgerJdbcRepository.TransactionRow;
+import com.banking.util.TransactionRefGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Routes every posting to one of N single-writer shards keyed by account id.
+ * <p>
+ * Each shard owns the in-memory balances of its accounts, applies postings in queue
+ * order and persists whatever it has drained in one group commit. A transfer between
+ * two shards is enqueued on both (under both enqueue locks, taken in shard order, so
+ * all shards see cross-shard postings in the same relative order); the lower shard
+ * applies it once the other one has parked on it.
+ * <p>
+ * Balance writes are version-checked, so a write made outside the engine (for example
+ * a loan disbursement) makes the next group commit roll back, reload and replay.
+ * <p>
+ * A posting a shard has not started on when its caller times out is dropped; one it has
+ * already started on may still commit, so the caller gets it back as PENDING with the
+ * transaction reference it will be stored under, and {@link #settlement} reports how it ended.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "posting.engine", havingValue = "sharded")
+public class ShardedPostingEngine implements PostingEngine {
+
+    private final LedgerJdbcRepository ledgerRepository;
+    private final JpaPostingEngine jpaPostingEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceCache balanceCache;
+    private final DashboardStatistics dashboardStatistics;
+    private final int shardCount;
+    private final int batchSize;
+    private final long timeoutMs;
+    private final int accountsPerShard;
+
+    // Account numbers never move to another id, so entries only leave by size
+    private final Cache<String, Long> accountIdsByNumber;
+    // Postings handed back as PENDING, kept for a while after they settle so a late lookup still sees the outcome
+    private final Cache<String, CompletableFuture<TransactionResponse>> pendingPostings = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+    private Shard[] shards;
+
+    public ShardedPostingEngine(LedgerJdbcRepository ledgerRepository,
+                                JpaPostingEngine jpaPostingEngine,
+                                TransactionTemplate transactionTemplate,
+                                BalanceCache balanceCache,
+                                DashboardStatistics dashboardStatistics,
+                                @Value("${posting.shards:8}") int shardCount,
+                                @Value("${posting.batch-size:256}") int batchSize,
+                                @Value("${posting.timeout-ms:5000}") long timeoutMs,
+                                @Value("${posting.cached-accounts:100000}") int cachedAccounts) {
+        this.ledgerRepository = ledgerRepository;
+        this.jpaPostingEngine = jpaPostingEngine;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceCache = balanceCache;
+        this.dashboardStatistics = dashboardStatistics;
+        this.shardCount = shardCount;
+        this.batchSize = batchSize;
+        this.timeoutMs = timeoutMs;
+        this.accountsPerShard = Math.max(1, cachedAccounts / Math.max(1, shardCount));
+        this.accountIdsByNumber = Caffeine.newBuilder()
+                .maximumSize(cachedAccounts)
+                .build();
+    }
+
+    @PostConstruct
+    void start() {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+        log.info("Sharded posting engine started with {} shards", shardCount);
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+    }
+
+    @Override
+    public TransactionResponse deposit(DepositRequest request) {
+        // Callers already inside a transaction need to see their own uncommitted rows, which
+        // the shard writers' connections cannot, so they post on that transaction instead.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return jpaPostingEngine.deposit(request);
+        }
+
+        return submit(new Posting(Transaction.TransactionType.DEPOSIT, null, request.getAccountId(),
+                request.getAmount(), request.getDescription(), currentUserEmail(), false));
+    }
+
+    @Override
+    public TransactionResponse withdraw(WithdrawRequest request) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return jpaPostingEngine.withdraw(request);
+        }
+
+        return submit(new Posting(Transaction.TransactionType.WITHDRAWAL, request.getAccountId(), null,
+                request.getAmount(), request.getDescription(), currentUserEmail(), false));
+    }
+
+    @Override
+    public TransactionResponse transfer(TransferRequest request) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return jpaPostingEngine.transfer(request);
+        }
+
+        Long destinationAccountId = resolveAccountId(request.getDestinationAccountNumber())
+                .orElseThrow(() -> new ResourceNotFoundException("Destination account not found"));
+
+        boolean crossShard = shardFor(request.getSourceAccountId()) != shardFor(destinationAccountId);
+        return submit(new Posting(Transaction.TransactionType.TRANSFER, request.getSourceAccountId(),
+                destinationAccountId, request.getAmount(), request.getDescription(), currentUserEmail(), crossShard));
+    }
+
+    private TransactionResponse submit(Posting posting) {
+        if (posting.crossShard) {
+            Shard first = shardFor(posting.sourceAccountId);
+            Shard second = shardFor(posting.destinationAccountId);
+            Shard low = first.index < second.index ? first : second;
+            Shard high = low == first ? second : first;
+
+            low.enqueueLock.lock();
+            try {
+                high.enqueueLock.lock();
+                try {
+                    low.queue.add(posting);
+                    high.queue.add(posting);
+                } finally {
+                    high.enqueueLock.unlock();
+                }
+            } finally {
+                low.enqueueLock.unlock();
+            }
+        } else {
+            shardFor(posting.ownerAccountId()).queue.add(posting);
+        }
+
+        try {
+            return posting.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Posting failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            if (posting.abandon()) {
+                throw new IllegalStateException("Posting was not started within " + timeoutMs + " ms; nothing was posted");
+            }
+            // A shard has it: it will commit or fail on its own, under this reference
+            log.warn("Posting {} was not confirmed within {} ms", posting.transactionRef, timeoutMs);
+            pendingPostings.put(posting.transactionRef, posting.result);
+            return posting.pendingResponse();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for posting");
+        }
+    }
+
+    @Override
+    public Optional<CompletableFuture<TransactionResponse>> settlement(String transactionRef) {
+        return Optional.ofNullable(pendingPostings.getIfPresent(transactionRef));
+    }
+
+    private Optional<Long> resolveAccountId(String accountNumber) {
+        Long cached = accountIdsByNumber.getIfPresent(accountNumber);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Long> accountId = ledgerRepository.findAccountIdByNumber(accountNumber);
+        accountId.ifPresent(id -> accountIdsByNumber.put(accountNumber, id));
+        return accountId;
+    }
+
+    private Shard shardFor(Long accountId) {
+        return shards[Math.floorMod(Long.hashCode(accountId), shardCount)];
+    }
+
+    private String currentUserEmail() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    private final class Shard implements Runnable {
+
+        private final int index;
+        private final Thread thread;
+        private final BlockingQueue<Posting> queue = new LinkedBlockingQueue<>();
+        private final ReentrantLock enqueueLock = new ReentrantLock();
+
+        // Only touched by this shard's thread, or by a coordinator while this shard is parked.
+        // In access order, and trimmed to accountsPerShard between batches.
+        private final Map<Long, AccountState> accounts = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Shard(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "posting-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Posting> drained = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    drained.add(queue.take());
+                } catch (InterruptedException ex) {
+                    break;
+                }
+                queue.drainTo(drained, batchSize - 1);
+
+                try {
+                    process(drained);
+                } catch (RuntimeException ex) {
+                    log.error("Posting shard {} failed to process a batch", index, ex);
+                    drained.forEach(posting -> posting.result.completeExceptionally(ex));
+                }
+                drained.clear();
+                trimAccounts();
+            }
+
+            IllegalStateException shutdown = new IllegalStateException("Posting engine is shutting down");
+            queue.forEach(posting -> posting.result.completeExceptionally(shutdown));
+        }
+
+        private void process(List<Posting> postings) {
+            List<Posting> local = new ArrayList<>();
+            for (Posting posting : postings) {
+                if (posting.crossShard) {
+                    commit(local);
+                    local.clear();
+                    handleCrossShard(posting);
+                } else {
+                    local.add(posting);
+                }
+            }
+            commit(local);
+        }
+
+        // Drops the least recently used balances; they are reloaded with their version on next use
+        private void trimAccounts() {
+            Iterator<AccountState> eldest = accounts.values().iterator();
+            while (accounts.size() > accountsPerShard && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        private void handleCrossShard(Posting posting) {
+            posting.arrived.countDown();
+
+            Shard coordinator = shardFor(posting.sourceAccountId).index < shardFor(posting.destinationAccountId).index
+                    ? shardFor(posting.sourceAccountId)
+                    : shardFor(posting.destinationAccountId);
+
+            if (coordinator != this) {
+                awaitUninterruptibly(posting.applied);
+                return;
+            }
+
+            awaitUninterruptibly(posting.arrived);
+            try {
+                commit(List.of(posting));
+            } finally {
+                posting.applied.countDown();
+            }
+        }
+
+        private void awaitUninterruptibly(CountDownLatch latch) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ============ Group commit ============
+
+    private void commit(List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+
+        GroupCommit group = apply(postings);
+        if (group.applied.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (!persist(group)) {
+                // An account changed outside the engine; reload it and replay once
+                evict(group);
+                group = apply(postings);
+                if (!group.applied.isEmpty() && !persist(group)) {
+                    evict(group);
+                    OptimisticLockingFailureException conflict =
+                            new OptimisticLockingFailureException("Account was modified concurrently, please retry");
+                    group.applied.forEach(applied -> applied.posting.result.completeExceptionally(conflict));
+                    return;
+                }
+            }
+        } catch (RuntimeException ex) {
+            // Rolled back for another reason; the in-memory balances already include the group
+            log.warn("Group commit of {} postings failed", group.applied.size(), ex);
+            evict(group);
+            for (Applied applied : group.applied) {
+                applied.posting.result.completeExceptionally(ex);
+            }
+            return;
+        }
+
+        group.touched.values().forEach(state -> state.version++);
+        group.applied.forEach(applied -> applied.posting.result.complete(applied.response));
+    }
+
+    private GroupCommit apply(List<Posting> postings) {
+        GroupCommit group = new GroupCommit();
+        for (Posting posting : postings) {
+            if (posting.result.isDone() || !posting.claim()) {
+                continue;
+            }
+            try {
+                group.applied.add(applyPosting(posting, group));
+            } catch (RuntimeException ex) {
+                posting.result.completeExceptionally(ex);
+            }
+        }
+        return group;
+    }
+
+    private Applied applyPosting(Posting posting, GroupCommit group) {
+        return switch (posting.type) {
+            case DEPOSIT -> {
+                AccountState account = accountState(posting.destinationAccountId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+                validateAccountOwnership(account, posting.userEmail);
+                validateAccountStatus(account);
+
+                group.touch(account);
+                account.balance = account.balance.add(posting.amount);
+                yield new Applied(posting, account, account.currency);
+            }
+            case WITHDRAWAL -> {
+                AccountState account = accountState(posting.sourceAccountId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+                validateAccountOwnership(account, posting.userEmail);
+                validateAccountStatus(account);
+
+                if (account.balance.compareTo(posting.amount) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance for withdrawal");
+                }
+
+                group.touch(account);
+                account.balance = account.balance.subtract(posting.amount);
+                yield new Applied(posting, account, account.currency);
+            }
+            case TRANSFER -> {
+                AccountState source = accountState(posting.sourceAccountId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Source account not found"));
+                validateAccountOwnership(source, posting.userEmail);
+                validateAccountStatus(source);
+
+                AccountState destination = accountState(posting.destinationAccountId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Destination account not found"));
+                validateAccountStatus(destination);
+
+                if (source.id.equals(destination.id)) {
+                    throw new BadRequestException("Cannot transfer to the same account");
+                }
+
+                if (source.balance.compareTo(posting.amount) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance for transfer");
+                }
+
+                group.touch(source);
+                group.touch(destination);
+                source.balance = source.balance.subtract(posting.amount);
+                destination.balance = destination.balance.add(posting.amount);
+                yield new Applied(posting, source, source.currency);
+            }
+        };
+    }
+
+    // False when a balance version was stale; any other failure is thrown
+    private boolean persist(GroupCommit group) {
+        List<TransactionRow> rows = group.applied.stream().map(applied -> applied.row).toList();
+        List<BalanceUpdate> updates = group.touched.values().stream()
+                .map(state -> new BalanceUpdate(state.id, state.balance, state.version))
+                .toList();
+        BigDecimal depositsDelta = BigDecimal.ZERO;
+        for (TransactionRow row : rows) {
+            switch (row.transactionType()) {
+                case DEPOSIT -> depositsDelta = depositsDelta.add(row.amount());
+                case WITHDRAWAL -> depositsDelta = depositsDelta.subtract(row.amount());
+                default -> {
+                }
+            }
+        }
+        BigDecimal totalDepositsDelta = depositsDelta;
+
+        Boolean committed = transactionTemplate.execute(status -> {
+            ledgerRepository.insertTransactions(rows);
+            if (ledgerRepository.updateBalances(updates) > 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            dashboardStatistics.add(DashboardStatistics.Stat.TOTAL_DEPOSITS, totalDepositsDelta);
+            balanceCache.supersedeOnCommit(updates.stream()
+                    .collect(Collectors.toMap(BalanceUpdate::accountId, BalanceUpdate::writtenVersion)));
+            return true;
+        });
+        return Boolean.TRUE.equals(committed);
+    }
+
+    private void evict(GroupCommit group) {
+        group.touched.keySet().forEach(accountId -> shardFor(accountId).accounts.remove(accountId));
+    }
+
+    private Optional<AccountState> accountState(Long accountId) {
+        Map<Long, AccountState> accounts = shardFor(accountId).accounts;
+        AccountState state = accounts.get(accountId);
+        if (state == null) {
+            Optional<AccountSnapshot> snapshot = ledgerRepository.findAccountSnapshot(accountId);
+            if (snapshot.isEmpty()) {
+                return Optional.empty();
+            }
+            state = new AccountState(snapshot.get());
+            accounts.put(accountId, state);
+        }
+        return Optional.of(state);
+    }
+
+    private void validateAccountOwnership(AccountState account, String userEmail) {
+        if (!account.ownerEmail.equals(userEmail)) {
+            throw new BadRequestException("You don't have access to this account");
+        }
+    }
+
+    private void validateAccountStatus(AccountState account) {
+        if (account.status != Account.AccountStatus.ACTIVE) {
+            throw new BadRequestException("Account is not active");
+        }
+    }
+
+    // ============ Shard state ============
+
+    private static final class Posting {
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Transaction.TransactionType type;
+        private final Long sourceAccountId;
+        private final Long destinationAccountId;
+        private final BigDecimal amount;
+        private final String description;
+        private final String userEmail;
+        private final boolean crossShard;
+        // Fixed up front so that a replay and a PENDING response use the same reference
+        private final String transactionRef = TransactionRefGenerator.generate();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CompletableFuture<TransactionResponse> result = new CompletableFuture<>();
+        private final CountDownLatch arrived = new CountDownLatch(2);
+        private final CountDownLatch applied = new CountDownLatch(1);
+
+        private Posting(Transaction.TransactionType type, Long sourceAccountId, Long destinationAccountId,
+                        BigDecimal amount, String description, String userEmail, boolean crossShard) {
+            this.type = type;
+            this.sourceAccountId = sourceAccountId;
+            this.destinationAccountId = destinationAccountId;
+            this.amount = amount;
+            this.description = description;
+            this.userEmail = userEmail;
+            this.crossShard = crossShard;
+        }
+
+        private Long ownerAccountId() {
+            return sourceAccountId != null ? sourceAccountId : destinationAccountId;
+        }
+
+        // Called by the applying shard; false once the caller has given up on it
+        private boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED) || state.get() == CLAIMED;
+        }
+
+        // Called by the caller on timeout; false once a shard has started on it
+        private boolean abandon() {
+            return state.compareAndSet(QUEUED, ABANDONED);
+        }
+
+        private TransactionResponse pendingResponse() {
+            return TransactionResponse.builder()
+                    .transactionRef(transactionRef)
+                    .accountId(ownerAccountId())
+                    .transactionType(type)
+                    .amount(amount)
+                    .status(Transaction.TransactionStatus.PENDING)
+                    .timestamp(LocalDateTime.now())
+                    .build();
+        }
+    }
+
+    private static final class AccountState {
+        private final Long id;
+        private final String ownerEmail;
+        private final Account.AccountStatus status;
+        private final String currency;
+        private BigDecimal balance;
+        private long version;
+
+        private AccountState(AccountSnapshot snapshot) {
+            this.id = snapshot.id();
+            this.ownerEmail = snapshot.ownerEmail();
+            this.status = snapshot.status();
+            this.currency = snapshot.currency();
+            this.balance = snapshot.balance();
+            this.version = snapshot.version();
+        }
+    }
+
+    private static final class GroupCommit {
+        private final List<Applied> applied = new ArrayList<>();
+        private final Map<Long, AccountState> touched = new LinkedHashMap<>();
+
+        private void touch(AccountState state) {
+            touched.putIfAbsent(state.id, state);
+        }
+    }
+
+    private static final class Applied {
+        private final Posting posting;
+        private final TransactionRow row;
+        private final TransactionResponse response;
+
+        private Applied(Posting posting, AccountState account, String currency) {
+            LocalDateTime now = LocalDateTime.now();
+            this.posting = posting;
+            this.row = new TransactionRow(
+                    posting.transactionRef,
+                    posting.sourceAccountId,
+                    posting.destinationAccountId,
+                    posting.type,
+                    posting.amount,
+                    currency,
+                    posting.description,
+                    Transaction.TransactionStatus.COMPLETED,
+                    now
+            );
+            this.response = TransactionResponse.builder()
+                    .transactionRef(row.transactionRef())
+                    .accountId(account.id)
+                    .transactionType(posting.type)
+                    .amount(posting.amount)
+                    .newBalance(account.balance)
+                    .status(row.status())
+                    .timestamp(now)
+                    .build();
+        }
+    }
+}
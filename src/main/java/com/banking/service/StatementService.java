@@ -0,0 +1,152 @@
+package com.banking.service;
+
+import com.banking.dto.StatementLineDto;
+import com.banking.entity.Account;
+import com.banking.exception.BadRequestException;
+import com.banking.repository.LedgerJdbcRepository;
+import com.banking.util.KeysetCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Full account statements as CSV or NDJSON. Rows are read through a JDBC cursor and
+ * written straight to the response, so memory use does not depend on the history length.
+ */
+@Slf4j
+@Service
+public class StatementService {
+
+    private static final String CSV_HEADER =
+            "created_at,transaction_ref,transaction_type,entry_type,amount,currency,counterparty_account,description,status";
+
+    private final AccountService accountService;
+    private final LedgerJdbcRepository ledgerRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+
+    public StatementService(AccountService accountService,
+                            LedgerJdbcRepository ledgerRepository,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${statement.fetch-size:1000}") int fetchSize) {
+        this.accountService = accountService;
+        this.ledgerRepository = ledgerRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Checks access and arguments on the calling thread; the returned body runs the query
+     * when the response is written.
+     */
+    public StatementExport export(Long accountId, LocalDateTime from, LocalDateTime to, String format) {
+        Account account = accountService.getAccountAndValidateOwnership(accountId);
+
+        StatementFormat statementFormat = StatementFormat.parse(format);
+        LocalDateTime start = from != null ? from : KeysetCursor.EARLIEST;
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (start.isAfter(end)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+
+        String filename = "statement-" + account.getAccountNumber() + "." + statementFormat.extension;
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (statementFormat == StatementFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> ledgerRepository.streamStatement(
+                        accountId, start, end, fetchSize, line -> write(writer, statementFormat, line)));
+            } catch (UncheckedIOException ex) {
+                // Client went away; the cursor and connection are released by the rollback
+                log.debug("Statement export for account {} aborted: {}", accountId, ex.getMessage());
+                throw ex.getCause();
+            }
+            writer.flush();
+        };
+        return new StatementExport(filename, statementFormat.mediaType, body);
+    }
+
+    private void write(Writer writer, StatementFormat format, StatementLineDto line) {
+        try {
+            if (format == StatementFormat.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(line));
+            } else {
+                writer.write(line.getCreatedAt().toString());
+                writer.write(',');
+                writer.write(csv(line.getTransactionRef()));
+                writer.write(',');
+                writer.write(line.getTransactionType().name());
+                writer.write(',');
+                writer.write(line.getEntryType().name());
+                writer.write(',');
+                writer.write(line.getAmount().toPlainString());
+                writer.write(',');
+                writer.write(csv(line.getCurrency()));
+                writer.write(',');
+                writer.write(csv(line.getCounterpartyAccountNumber()));
+                writer.write(',');
+                writer.write(csv(line.getDescription()));
+                writer.write(',');
+                writer.write(line.getStatus().name());
+            }
+            writer.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public record StatementExport(String filename, MediaType mediaType, StreamingResponseBody body) {
+    }
+
+    private enum StatementFormat {
+        CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+        NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        StatementFormat(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        private static StatementFormat parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Unsupported statement format: " + format);
+            }
+        }
+    }
+}
@@ -5,12 +5,12 @@ import com.banking.entity.Account;
 import com.banking.entity.Transaction;
 import com.banking.entity.User;
 import com.banking.exception.BadRequestException;
-import com.banking.exception.InsufficientBalanceException;
 import com.banking.exception.ResourceNotFoundException;
 import com.banking.repository.AccountRepository;
 import com.banking.repository.TransactionRepository;
 import com.banking.repository.UserRepository;
-import com.banking.util.TransactionRefGenerator;
+import com.banking.util.AccountNumberGenerator;
+import com.banking.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -19,9 +19,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,137 +32,38 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final PostingEngine postingEngine;
+    private final BatchTransferService batchTransferService;
+    private final OptimisticRetryExecutor retryExecutor;
 
-    @Transactional
+    // The engines record dashboard deltas on the transaction that posts
     public TransactionResponse deposit(DepositRequest request) {
-        Account account = accountRepository.findById(request.getAccountId())
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
-
-        validateAccountOwnership(account);
-        validateAccountStatus(account);
-
-        // Create transaction
-        Transaction transaction = Transaction.builder()
-                .transactionRef(TransactionRefGenerator.generate())
-                .destinationAccount(account)
-                .transactionType(Transaction.TransactionType.DEPOSIT)
-                .amount(request.getAmount())
-                .currency(account.getCurrency())
-                .description(request.getDescription())
-                .status(Transaction.TransactionStatus.COMPLETED)
-                .build();
-
-        // Update account balance
-        account.credit(request.getAmount());
-
-        transactionRepository.save(transaction);
-        accountRepository.save(account);
-
-        return TransactionResponse.builder()
-                .transactionRef(transaction.getTransactionRef())
-                .accountId(account.getId())
-                .transactionType(transaction.getTransactionType())
-                .amount(transaction.getAmount())
-                .newBalance(account.getBalance())
-                .status(transaction.getStatus())
-                .timestamp(transaction.getCreatedAt())
-                .build();
+        return retryExecutor.execute("transactions.deposit", () -> postingEngine.deposit(request));
     }
 
-    @Transactional
     public TransactionResponse withdraw(WithdrawRequest request) {
-        Account account = accountRepository.findById(request.getAccountId())
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
-
-        validateAccountOwnership(account);
-        validateAccountStatus(account);
-
-        // Check sufficient balance
-        if (account.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for withdrawal");
-        }
-
-        // Create transaction
-        Transaction transaction = Transaction.builder()
-                .transactionRef(TransactionRefGenerator.generate())
-                .sourceAccount(account)
-                .transactionType(Transaction.TransactionType.WITHDRAWAL)
-                .amount(request.getAmount())
-                .currency(account.getCurrency())
-                .description(request.getDescription())
-                .status(Transaction.TransactionStatus.COMPLETED)
-                .build();
-
-        // Update account balance
-        account.debit(request.getAmount());
-
-        transactionRepository.save(transaction);
-        accountRepository.save(account);
-
-        return TransactionResponse.builder()
-                .transactionRef(transaction.getTransactionRef())
-                .accountId(account.getId())
-                .transactionType(transaction.getTransactionType())
-                .amount(transaction.getAmount())
-                .newBalance(account.getBalance())
-                .status(transaction.getStatus())
-                .timestamp(transaction.getCreatedAt())
-                .build();
+        return retryExecutor.execute("transactions.withdraw", () -> postingEngine.withdraw(request));
     }
 
-    @Transactional
     public TransactionResponse transfer(TransferRequest request) {
-        // Get source account
-        Account sourceAccount = accountRepository.findById(request.getSourceAccountId())
-                .orElseThrow(() -> new ResourceNotFoundException("Source account not found"));
-
-        validateAccountOwnership(sourceAccount);
-        validateAccountStatus(sourceAccount);
-
-        // Get destination account
-        Account destinationAccount = accountRepository.findByAccountNumber(request.getDestinationAccountNumber())
-                .orElseThrow(() -> new ResourceNotFoundException("Destination account not found"));
-
-        validateAccountStatus(destinationAccount);
-
-        // Validate transfer
-        if (sourceAccount.getId().equals(destinationAccount.getId())) {
-            throw new BadRequestException("Cannot transfer to the same account");
+        if (!AccountNumberGenerator.isWellFormed(request.getDestinationAccountNumber())) {
+            throw new BadRequestException("Invalid destination account number");
         }
+        return retryExecutor.execute("transactions.transfer", () -> postingEngine.transfer(request));
+    }
 
-        if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for transfer");
+    /**
+     * For a PENDING posting response, the posting's final response once it settles.
+     */
+    public Optional<CompletableFuture<TransactionResponse>> settlement(TransactionResponse response) {
+        if (response.getStatus() != Transaction.TransactionStatus.PENDING) {
+            return Optional.empty();
         }
+        return postingEngine.settlement(response.getTransactionRef());
+    }
 
-        // Create transaction
-        Transaction transaction = Transaction.builder()
-                .transactionRef(TransactionRefGenerator.generate())
-                .sourceAccount(sourceAccount)
-                .destinationAccount(destinationAccount)
-                .transactionType(Transaction.TransactionType.TRANSFER)
-                .amount(request.getAmount())
-                .currency(sourceAccount.getCurrency())
-                .description(request.getDescription())
-                .status(Transaction.TransactionStatus.COMPLETED)
-                .build();
-
-        // Update balances
-        sourceAccount.debit(request.getAmount());
-        destinationAccount.credit(request.getAmount());
-
-        transactionRepository.save(transaction);
-        accountRepository.save(sourceAccount);
-        accountRepository.save(destinationAccount);
-
-        return TransactionResponse.builder()
-                .transactionRef(transaction.getTransactionRef())
-                .accountId(sourceAccount.getId())
-                .transactionType(transaction.getTransactionType())
-                .amount(transaction.getAmount())
-                .newBalance(sourceAccount.getBalance())
-                .status(transaction.getStatus())
-                .timestamp(transaction.getCreatedAt())
-                .build();
+    public BatchTransferResponse transferBatch(BatchTransferRequest request) {
+        return retryExecutor.execute("transactions.transfer-batch", () -> batchTransferService.transfer(request));
     }
 
     @Transactional(readOnly = true)
@@ -209,16 +111,62 @@ public class TransactionService {
                 .build();
     }
 
-    private void validateAccountOwnership(Account account) {
+    /**
+     * Keyset variant of {@link #getTransactions}: seeks past the cursor on (created_at, id)
+     * and skips the count query. An empty cursor starts at the newest transaction.
+     */
+    @Transactional(readOnly = true)
+    public TransactionListResponse getTransactionsAfter(Long accountId,
+                                                        LocalDateTime startDate,
+                                                        LocalDateTime endDate,
+                                                        String cursor,
+                                                        int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
         String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        if (!account.getUser().getEmail().equals(userEmail)) {
-            throw new BadRequestException("You don't have access to this account");
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        boolean dateRange = accountId != null && startDate != null && endDate != null;
+        KeysetCursor position = cursor.isEmpty()
+                ? KeysetCursor.startingAt(dateRange ? endDate : KeysetCursor.LATEST)
+                : KeysetCursor.decode(cursor);
+
+        // One extra row tells whether another page follows
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<Transaction> rows;
+
+        if (accountId != null) {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+            validateAccountOwnership(account);
+
+            rows = transactionRepository.findPageByAccountId(accountId,
+                    dateRange ? startDate : KeysetCursor.EARLIEST,
+                    position.createdAt(), position.id(), limit);
+        } else {
+            rows = transactionRepository.findPageByUserId(user.getId(),
+                    position.createdAt(), position.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Transaction last = rows.get(size - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
         }
+
+        return TransactionListResponse.builder()
+                .transactions(rows.stream().map(this::mapToDto).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    private void validateAccountStatus(Account account) {
-        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
-            throw new BadRequestException("Account is not active");
+    private void validateAccountOwnership(Account account) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (!account.getUser().getEmail().equals(userEmail)) {
+            throw new BadRequestException("You don't have access to this account");
         }
     }
 
@@ -0,0 +1,33 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.entity.User;
+import com.banking.repository.UserSearchJdbcRepository;
+import com.banking.repository.UserSearchJdbcRepository.UserMatch;
+import com.banking.util.SearchCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class TrigramUserSearchIndex implements UserSearchIndex {
+
+    private final UserSearchJdbcRepository userSearchRepository;
+
+    @Override
+    public List<UserMatch> search(String term, SearchCursor after, int limit) {
+        return userSearchRepository.searchByTrigram(term, after, limit);
+    }
+
+    // Postgres keeps the trigram index current on its own
+
+    @Override
+    public void userSaved(User user) {
+    }
+
+    @Override
+    public void accountSaved(Account account) {
+    }
+}
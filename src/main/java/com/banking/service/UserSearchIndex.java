@@ -0,0 +1,26 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.entity.User;
+import com.banking.repository.UserSearchJdbcRepository.UserMatch;
+import com.banking.util.SearchCursor;
+
+import java.util.List;
+
+/**
+ * Ranked substring search over user names, emails and account numbers.
+ * The implementation is selected with the {@code user-search.engine} property:
+ * {@code trigram} (default, backed by a Postgres pg_trgm index) or {@code ngram}
+ * (an in-process inverted index for test and embedded setups).
+ */
+public interface UserSearchIndex {
+
+    /**
+     * Up to {@code limit} matches ranked strictly after {@code after}, best first.
+     */
+    List<UserMatch> search(String term, SearchCursor after, int limit);
+
+    void userSaved(User user);
+
+    void accountSaved(Account account);
+}
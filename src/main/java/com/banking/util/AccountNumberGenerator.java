@@ -1,21 +1,63 @@
 package com.banking.util;
 
-import java.security.SecureRandom;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
 
+/**
+ * Account numbers are {@code ACC}, an 11-digit serial and a Luhn check digit, so a mistyped
+ * number can be rejected without a lookup. Numbers issued before the check digit are still
+ * accepted by {@link #isWellFormed(String)}, but only in their original shape.
+ */
 public class AccountNumberGenerator {
 
-    private static final SecureRandom random = new SecureRandom();
     private static final String PREFIX = "ACC";
+    private static final int SERIAL_DIGITS = 11;
+    public static final long MAX_SERIAL = 99_999_999_999L;
 
-    public static String generate() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        int randomNum = 1000 + random.nextInt(9000);
-        return PREFIX + timestamp.substring(2) + randomNum;
-    }
-}
+    private static final Pattern CURRENT = Pattern.compile("ACC\\d{12}");
+    // ACC + yyMMddHHmmss + 4 random digits, and ACC + 13 base-36 characters
+    private static final Pattern LEGACY = Pattern.compile("ACC(\\d{16}|[0-9A-Z]{13})");
 
+    public static String generate(long serial) {
+        if (serial < 0 || serial > MAX_SERIAL) {
+            throw new IllegalArgumentException("Account number serial out of range: " + serial);
+        }
+        char[] chars = new char[PREFIX.length() + SERIAL_DIGITS + 1];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        long remaining = serial;
+        for (int i = PREFIX.length() + SERIAL_DIGITS - 1; i >= PREFIX.length(); i--) {
+            chars[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        chars[chars.length - 1] = (char) ('0' + checkDigit(chars, PREFIX.length(), chars.length - 1));
+        return new String(chars);
+    }
 
-// ============================================
+    public static boolean isWellFormed(String accountNumber) {
+        if (accountNumber == null) {
+            return false;
+        }
+        if (CURRENT.matcher(accountNumber).matches()) {
+            char[] chars = accountNumber.toCharArray();
+            return chars[chars.length - 1] - '0' == checkDigit(chars, PREFIX.length(), chars.length - 1);
+        }
+        return LEGACY.matcher(accountNumber).matches();
+    }
 
+    // Luhn: double every second digit from the right of the payload, then round up to a multiple of 10
+    private static int checkDigit(char[] digits, int from, int to) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = to - 1; i >= from; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,47 @@
+package com.banking.util;
+
+import com.banking.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by {@code (created_at desc, id desc)}. Sent to clients as an
+ * opaque URL-safe token; the next page starts strictly after this position.
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    // Bounds used when a page has no cursor or date range; both fit into a Postgres TIMESTAMP
+    public static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    public static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Position just above every row created at or before {@code createdAt}.
+     */
+    public static KeysetCursor startingAt(LocalDateTime createdAt) {
+        return new KeysetCursor(createdAt, Long.MAX_VALUE);
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
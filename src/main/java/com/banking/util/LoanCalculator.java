@@ -2,9 +2,49 @@ package com.banking.util;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Loan arithmetic on amounts with two decimals.
+ * <p>
+ * The {@code *Exact} methods are the reference {@link BigDecimal} implementation. The public
+ * entry points first try a fast path in {@code long} cents that returns the same
+ * {@code BigDecimal}, same scale included, and fall back to the reference when an input does
+ * not fit (more than two decimals in an amount, a negative value, or a {@code long}
+ * overflow).
+ * <p>
+ * Rounding contract:
+ * <ul>
+ *   <li>The monthly rate is {@code annual / 12 / 100}, rounded HALF_UP to 10 decimals twice
+ *   as in the reference. It is computed exactly as a count of 1e-10 units.</li>
+ *   <li>Monthly interest is {@code balance * rate} rounded HALF_UP to cents. This is exact
+ *   integer arithmetic: {@code balanceCents * rateUnits / 1e10}.</li>
+ *   <li>The reference monthly payment is the exact quotient {@code P r (1+r)^n / ((1+r)^n - 1)}
+ *   rounded HALF_UP to cents. The fast path evaluates {@code P r / (1 - (1+r)^-n)} in cents
+ *   as a double using {@code log1p} and {@code expm1}. Java specifies both functions to
+ *   within 1 ulp, and {@code y / (e^y - 1) <= 1} keeps the error of {@code expm1(-y)} from
+ *   growing with the term. The relative error of the double therefore stays below
+ *   {@code 16 * 2^-53}. Rounding can only differ from the exact result when the true value is
+ *   within that error of a half cent. Within twice that error, the reference decides
+ *   instead.</li>
+ * </ul>
+ */
 public class LoanCalculator {
 
+    private static final int RATE_DIGITS = 10;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L
+    };
+    // Monthly rates are counted in units of 10^-RATE_DIGITS
+    private static final long RATE_UNITS = 10_000_000_000L;
+    private static final double PAYMENT_RELATIVE_ERROR = 0x1p-48;
+    private static final double MAX_EXACT_CENTS = 0x1p52;
+    private static final long NOT_REPRESENTABLE = -1;
+    private static final long DAYS_PER_YEAR = 365;
+
     /**
      * Calculate monthly payment using the formula:
      * M = P * [r(1+r)^n] / [(1+r)^n - 1]
@@ -23,10 +63,33 @@ public class LoanCalculator {
             return BigDecimal.ZERO;
         }
 
+        long principalCents = toCents(principal);
+        long rateUnits = monthlyRateUnits(annualInterestRate);
+        if (principalCents != NOT_REPRESENTABLE && rateUnits != NOT_REPRESENTABLE && termMonths > 0) {
+            long paymentCents = rateUnits == 0
+                    ? divideHalfUp(principalCents, termMonths)
+                    : monthlyPaymentCents(principalCents, rateUnits, termMonths);
+            if (paymentCents != NOT_REPRESENTABLE) {
+                return BigDecimal.valueOf(paymentCents, 2);
+            }
+        }
+        return calculateMonthlyPaymentExact(principal, annualInterestRate, termMonths);
+    }
+
+    /**
+     * Reference {@link BigDecimal} implementation of {@link #calculateMonthlyPayment}.
+     */
+    public static BigDecimal calculateMonthlyPaymentExact(
+            BigDecimal principal,
+            BigDecimal annualInterestRate,
+            int termMonths) {
+
+        if (termMonths == 0) {
+            return BigDecimal.ZERO;
+        }
+
         // Convert annual interest rate to monthly decimal
-        BigDecimal monthlyRate = annualInterestRate
-                .divide(new BigDecimal("12"), 10, RoundingMode.HALF_UP)
-                .divide(new BigDecimal("100"), 10, RoundingMode.HALF_UP);
+        BigDecimal monthlyRate = monthlyRate(annualInterestRate);
 
         if (monthlyRate.compareTo(BigDecimal.ZERO) == 0) {
             return principal.divide(new BigDecimal(termMonths), 2, RoundingMode.HALF_UP);
@@ -57,14 +120,31 @@ public class LoanCalculator {
             BigDecimal outstandingBalance,
             BigDecimal annualInterestRate) {
 
-        // Calculate monthly interest
-        BigDecimal monthlyRate = annualInterestRate
-                .divide(new BigDecimal("12"), 10, RoundingMode.HALF_UP)
-                .divide(new BigDecimal("100"), 10, RoundingMode.HALF_UP);
+        long paymentCents = toCents(paymentAmount);
+        long balanceCents = toCents(outstandingBalance);
+        long rateUnits = monthlyRateUnits(annualInterestRate);
+        if (paymentCents != NOT_REPRESENTABLE && balanceCents != NOT_REPRESENTABLE && rateUnits != NOT_REPRESENTABLE) {
+            long interestCents = interestCents(balanceCents, rateUnits);
+            if (interestCents != NOT_REPRESENTABLE) {
+                long principalCents = paymentCents - interestCents;
+                BigDecimal principalPortion = principalCents > balanceCents
+                        ? outstandingBalance
+                        : BigDecimal.valueOf(principalCents, 2);
+                return new BigDecimal[]{principalPortion, BigDecimal.valueOf(interestCents, 2)};
+            }
+        }
+        return calculatePaymentPortionsExact(paymentAmount, outstandingBalance, annualInterestRate);
+    }
 
-        BigDecimal interestPortion = outstandingBalance
-                .multiply(monthlyRate)
-                .setScale(2, RoundingMode.HALF_UP);
+    /**
+     * Reference {@link BigDecimal} implementation of {@link #calculatePaymentPortions}.
+     */
+    public static BigDecimal[] calculatePaymentPortionsExact(
+            BigDecimal paymentAmount,
+            BigDecimal outstandingBalance,
+            BigDecimal annualInterestRate) {
+
+        BigDecimal interestPortion = monthlyInterestExact(outstandingBalance, monthlyRate(annualInterestRate));
 
         BigDecimal principalPortion = paymentAmount
                 .subtract(interestPortion)
@@ -89,4 +169,137 @@ public class LoanCalculator {
         BigDecimal totalPayments = monthlyPayment.multiply(new BigDecimal(termMonths));
         return totalPayments.subtract(principal);
     }
-}
\ No newline at end of file
+
+    /**
+     * Build the full amortization schedule for a loan disbursed on {@code startDate}.
+     * Installment n is due n months after the start date. Each month's interest is the
+     * remaining principal times the monthly rate, rounded to cents, and the rest of the
+     * monthly payment repays principal. The last installment repays whatever principal
+     * is left, so the schedule always sums to exactly {@code principal}.
+     */
+    public static List<ScheduledInstallment> buildSchedule(
+            BigDecimal principal,
+            BigDecimal annualInterestRate,
+            int termMonths,
+            LocalDate startDate) {
+
+        BigDecimal monthlyPayment = calculateMonthlyPayment(principal, annualInterestRate, termMonths);
+        long rateUnits = monthlyRateUnits(annualInterestRate);
+        BigDecimal monthlyRate = rateUnits == NOT_REPRESENTABLE ? monthlyRate(annualInterestRate) : null;
+
+        List<ScheduledInstallment> schedule = new ArrayList<>(termMonths);
+        BigDecimal remaining = principal;
+        for (int number = 1; number <= termMonths; number++) {
+            BigDecimal interest = monthlyRate == null
+                    ? monthlyInterest(remaining, rateUnits)
+                    : monthlyInterestExact(remaining, monthlyRate);
+            BigDecimal principalPart = number == termMonths
+                    ? remaining
+                    : monthlyPayment.subtract(interest).min(remaining).max(BigDecimal.ZERO);
+            remaining = remaining.subtract(principalPart);
+            schedule.add(new ScheduledInstallment(number, startDate.plusMonths(number), principalPart, interest));
+        }
+        return schedule;
+    }
+
+    /**
+     * One day of interest on {@code balanceCents} at an annual rate in basis points, on an
+     * actual/365 basis, in millionths of the currency unit, rounded HALF_UP:
+     * {@code balance * rate / 100 / 365} is exactly {@code balanceCents * basisPoints / 365}
+     * millionths.
+     */
+    public static long calculateDailyInterestMicros(long balanceCents, long rateBasisPoints) {
+        long product = multiplyOrNotRepresentable(balanceCents, rateBasisPoints);
+        if (product != NOT_REPRESENTABLE) {
+            return divideHalfUp(product, DAYS_PER_YEAR);
+        }
+        return BigDecimal.valueOf(balanceCents)
+                .multiply(BigDecimal.valueOf(rateBasisPoints))
+                .divide(BigDecimal.valueOf(DAYS_PER_YEAR), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    public record ScheduledInstallment(int number, LocalDate dueDate, BigDecimal principal, BigDecimal interest) {
+    }
+
+    private static BigDecimal monthlyRate(BigDecimal annualInterestRate) {
+        return annualInterestRate
+                .divide(new BigDecimal("12"), RATE_DIGITS, RoundingMode.HALF_UP)
+                .divide(new BigDecimal("100"), RATE_DIGITS, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal monthlyInterestExact(BigDecimal balance, BigDecimal monthlyRate) {
+        return balance.multiply(monthlyRate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal monthlyInterest(BigDecimal balance, long rateUnits) {
+        long balanceCents = toCents(balance);
+        if (balanceCents != NOT_REPRESENTABLE) {
+            long interestCents = interestCents(balanceCents, rateUnits);
+            if (interestCents != NOT_REPRESENTABLE) {
+                return BigDecimal.valueOf(interestCents, 2);
+            }
+        }
+        return monthlyInterestExact(balance, BigDecimal.valueOf(rateUnits, RATE_DIGITS));
+    }
+
+    // annual / 12 and then / 100, each rounded HALF_UP to RATE_DIGITS, in units of 10^-RATE_DIGITS
+    static long monthlyRateUnits(BigDecimal annualInterestRate) {
+        int scale = annualInterestRate.scale();
+        if (annualInterestRate.signum() < 0 || scale < 0 || scale > RATE_DIGITS
+                || annualInterestRate.unscaledValue().bitLength() > 62) {
+            return NOT_REPRESENTABLE;
+        }
+        long unscaled = annualInterestRate.unscaledValue().longValue();
+        long scaled = multiplyOrNotRepresentable(unscaled, POWERS_OF_TEN[RATE_DIGITS - scale]);
+        if (scaled == NOT_REPRESENTABLE) {
+            return NOT_REPRESENTABLE;
+        }
+        return divideHalfUp(divideHalfUp(scaled, 12), 100);
+    }
+
+    // Non-negative amount with at most two decimals, in cents
+    static long toCents(BigDecimal amount) {
+        int scale = amount.scale();
+        if (amount.signum() < 0 || scale < 0 || scale > 2 || amount.unscaledValue().bitLength() > 62) {
+            return NOT_REPRESENTABLE;
+        }
+        return multiplyOrNotRepresentable(amount.unscaledValue().longValue(), POWERS_OF_TEN[2 - scale]);
+    }
+
+    private static long interestCents(long balanceCents, long rateUnits) {
+        long product = multiplyOrNotRepresentable(balanceCents, rateUnits);
+        return product == NOT_REPRESENTABLE ? NOT_REPRESENTABLE : divideHalfUp(product, RATE_UNITS);
+    }
+
+    private static long monthlyPaymentCents(long principalCents, long rateUnits, int termMonths) {
+        if (principalCents > MAX_EXACT_CENTS) {
+            return NOT_REPRESENTABLE;
+        }
+        double rate = rateUnits / (double) RATE_UNITS;
+        double discount = -Math.expm1(-termMonths * Math.log1p(rate));
+        double payment = principalCents * rate / discount;
+        if (!(payment < MAX_EXACT_CENTS)) {
+            return NOT_REPRESENTABLE;
+        }
+
+        double whole = Math.floor(payment);
+        double fraction = payment - whole;
+        if (Math.abs(fraction - 0.5) <= payment * PAYMENT_RELATIVE_ERROR) {
+            // Too close to a half cent to round from the approximation
+            return NOT_REPRESENTABLE;
+        }
+        return (long) whole + (fraction > 0.5 ? 1 : 0);
+    }
+
+    private static long multiplyOrNotRepresentable(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        return high == 0 && low >= 0 ? low : NOT_REPRESENTABLE;
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        return 2 * (dividend % divisor) >= divisor ? quotient + 1 : quotient;
+    }
+}
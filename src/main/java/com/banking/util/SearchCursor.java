@@ -0,0 +1,41 @@
+package com.banking.util;
+
+import com.banking.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a ranked list ordered by {@code (score desc, id asc)}. Sent to clients as an
+ * opaque URL-safe token; the next page starts strictly after this position.
+ */
+public record SearchCursor(float score, long id) {
+
+    // Ranks above every real score, so the first page starts at the top
+    public static final SearchCursor FIRST = new SearchCursor(Float.MAX_VALUE, 0L);
+
+    private static final char SEPARATOR = '|';
+
+    public boolean isAfter(float candidateScore, long candidateId) {
+        return candidateScore < score || (candidateScore == score && candidateId > id);
+    }
+
+    public String encode() {
+        String raw = Float.toString(score) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new SearchCursor(Float.parseFloat(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.banking.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style 63-bit ids: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and
+ * a 12-bit per-node sequence. Ids are unique across nodes as long as every node has its own
+ * node id, and strictly increasing on one node.
+ * <p>
+ * Generation is a single CAS on the last (millisecond, sequence) pair. When the sequence of a
+ * millisecond is used up, or the clock moves backwards, the generator carries into the next
+ * millisecond instead of waiting, so it never blocks and never repeats an id.
+ * <p>
+ * The shared instance takes its node id from the {@code reference.node-id} system property or
+ * the {@code REFERENCE_NODE_ID} environment variable, falling back to a hash of host name and
+ * process id. Multi-node deployments should set it explicitly.
+ */
+public final class SnowflakeIdGenerator {
+
+    public static final long EPOCH_MS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final SnowflakeIdGenerator SHARED = new SnowflakeIdGenerator(resolveNodeId());
+
+    private final long nodeBits;
+    // (milliseconds since EPOCH_MS << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public static SnowflakeIdGenerator shared() {
+        return SHARED;
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MS) << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = lastState.get();
+            // A full sequence carries into the millisecond bits, which is still unique and ordered
+            next = now > last ? now : last + 1;
+        } while (!lastState.compareAndSet(last, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    /**
+     * {@code prefix} followed by the id as a zero-padded 19-digit decimal number.
+     */
+    public String nextDecimal(String prefix) {
+        return format(prefix, nextId(), 10, 19);
+    }
+
+    /**
+     * {@code prefix} followed by the id as a zero-padded 13-character upper-case base-36 number,
+     * for columns that cannot hold the 19 decimal digits.
+     */
+    public String nextBase36(String prefix) {
+        return format(prefix, nextId(), 36, 13);
+    }
+
+    // Fixed width keeps references of one kind sortable in issue order
+    private static String format(String prefix, long id, int radix, int width) {
+        int prefixLength = prefix.length();
+        char[] chars = new char[prefixLength + width];
+        prefix.getChars(0, prefixLength, chars, 0);
+        long remaining = id;
+        for (int i = chars.length - 1; i >= prefixLength; i--) {
+            chars[i] = Character.toUpperCase(Character.forDigit((int) (remaining % radix), radix));
+            remaining /= radix;
+        }
+        return new String(chars);
+    }
+
+    private static int resolveNodeId() {
+        String configured = System.getProperty("reference.node-id", System.getenv("REFERENCE_NODE_ID"));
+        if (configured != null && !configured.isBlank()) {
+            return Integer.parseInt(configured.trim());
+        }
+
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "localhost";
+        }
+        return (host + '/' + ProcessHandle.current().pid()).hashCode() & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,29 @@
+-- Daily interest on ACTIVE loans, written by the nightly accrual job: outstanding balance at run
+-- time times the annual rate / 365, in millionths. Keyed by date first so a night's rows append
+-- to the right edge of the index; a rerun of a chunk inserts nothing twice.
+CREATE TABLE IF NOT EXISTS loan_interest_accruals (
+    accrual_date  DATE           NOT NULL,
+    loan_id       BIGINT         NOT NULL REFERENCES loans (id),
+    balance       NUMERIC(15, 2) NOT NULL,
+    interest_rate NUMERIC(5, 2)  NOT NULL,
+    amount        NUMERIC(19, 6) NOT NULL,
+    PRIMARY KEY (accrual_date, loan_id)
+);
+
+-- One checkpoint per accrual date. Each chunk commits its accruals together with last_loan_id,
+-- so an interrupted run resumes after the last committed chunk.
+CREATE TABLE IF NOT EXISTS loan_accrual_runs (
+    accrual_date     DATE           PRIMARY KEY,
+    status           VARCHAR(20)    NOT NULL,
+    last_loan_id     BIGINT         NOT NULL DEFAULT 0,
+    loans_processed  BIGINT         NOT NULL DEFAULT 0,
+    interest_accrued NUMERIC(19, 6) NOT NULL DEFAULT 0,
+    started_at       TIMESTAMP(6)   NOT NULL,
+    updated_at       TIMESTAMP(6)   NOT NULL,
+    finished_at      TIMESTAMP(6)
+);
+
+-- Keyset reads of active loans in id order, answered from the index
+CREATE INDEX IF NOT EXISTS idx_loans_active_id
+    ON loans (id) INCLUDE (outstanding_balance, interest_rate, disbursement_date)
+    WHERE status = 'ACTIVE';
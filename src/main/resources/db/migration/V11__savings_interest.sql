@@ -0,0 +1,33 @@
+-- Monthly interest credited to SAVINGS and FIXED_DEPOSIT accounts, one row per account and
+-- period. balance_days is the sum of end-of-day balances over the period; the row commits with
+-- the credit itself, so a rerun of a period fails on the key instead of paying twice.
+CREATE TABLE IF NOT EXISTS savings_interest_postings (
+    period_start    DATE           NOT NULL,
+    account_id      BIGINT         NOT NULL REFERENCES accounts (id),
+    transaction_ref VARCHAR(50)    NOT NULL,
+    balance_days    NUMERIC(21, 2) NOT NULL,
+    interest_rate   NUMERIC(5, 2)  NOT NULL,
+    amount          NUMERIC(15, 2) NOT NULL,
+    PRIMARY KEY (period_start, account_id)
+);
+
+-- The account id space of a period is split into fixed ranges, each with its own checkpoint.
+-- Workers claim ranges with SKIP LOCKED, so ranges are scanned in parallel on one node or many.
+CREATE TABLE IF NOT EXISTS savings_interest_runs (
+    period_start      DATE           NOT NULL,
+    partition_no      INT            NOT NULL,
+    range_end         BIGINT         NOT NULL,
+    last_account_id   BIGINT         NOT NULL,
+    status            VARCHAR(20)    NOT NULL,
+    accounts_credited BIGINT         NOT NULL DEFAULT 0,
+    interest_posted   NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    started_at        TIMESTAMP(6)   NOT NULL,
+    updated_at        TIMESTAMP(6)   NOT NULL,
+    finished_at       TIMESTAMP(6),
+    PRIMARY KEY (period_start, partition_no)
+);
+
+-- Keyset reads of interest-bearing accounts within a range
+CREATE INDEX IF NOT EXISTS idx_accounts_interest_bearing
+    ON accounts (id) INCLUDE (account_type, balance, created_at)
+    WHERE account_type IN ('SAVINGS', 'FIXED_DEPOSIT') AND status <> 'CLOSED';
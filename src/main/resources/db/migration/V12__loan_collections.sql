@@ -0,0 +1,39 @@
+-- Auto-debit collection of due installments. Loans are split into partitions by
+-- account_id % partitions, so every loan of an account is collected by one worker; each
+-- partition keeps its own checkpoint per collection date and is claimed with SKIP LOCKED.
+CREATE TABLE IF NOT EXISTS loan_collection_runs (
+    collection_date  DATE           NOT NULL,
+    partition_no     INT            NOT NULL,
+    partitions       INT            NOT NULL,
+    last_loan_id     BIGINT         NOT NULL DEFAULT 0,
+    status           VARCHAR(20)    NOT NULL,
+    loans_collected  BIGINT         NOT NULL DEFAULT 0,
+    amount_collected NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    loans_deferred   BIGINT         NOT NULL DEFAULT 0,
+    started_at       TIMESTAMP(6)   NOT NULL,
+    updated_at       TIMESTAMP(6)   NOT NULL,
+    finished_at      TIMESTAMP(6),
+    PRIMARY KEY (collection_date, partition_no)
+);
+
+-- Loans whose linked account could not cover what was due, retried until collected, paid by
+-- the customer, or out of attempts (EXHAUSTED)
+CREATE TABLE IF NOT EXISTS loan_collection_retries (
+    loan_id         BIGINT         PRIMARY KEY REFERENCES loans (id),
+    first_due_date  DATE           NOT NULL,
+    amount_due      NUMERIC(15, 2) NOT NULL,
+    attempts        INT            NOT NULL,
+    status          VARCHAR(20)    NOT NULL,
+    last_error      TEXT,
+    next_attempt_at TIMESTAMP(6)   NOT NULL,
+    created_at      TIMESTAMP(6)   NOT NULL,
+    updated_at      TIMESTAMP(6)   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_loan_collection_retries_pending
+    ON loan_collection_retries (next_attempt_at, loan_id) WHERE status = 'PENDING';
+
+-- Keyset reads of collectable loans in id order
+CREATE INDEX IF NOT EXISTS idx_loans_collectable
+    ON loans (id) INCLUDE (account_id, next_installment)
+    WHERE status = 'ACTIVE' AND next_installment IS NOT NULL AND account_id IS NOT NULL;
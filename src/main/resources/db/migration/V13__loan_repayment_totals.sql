@@ -0,0 +1,26 @@
+-- Running totals of completed repayments, maintained by every write path that records one, so
+-- the repayment history no longer aggregates loan_repayments per request
+ALTER TABLE loans ADD COLUMN IF NOT EXISTS total_repaid NUMERIC(15, 2) NOT NULL DEFAULT 0;
+ALTER TABLE loans ADD COLUMN IF NOT EXISTS total_interest_paid NUMERIC(15, 2) NOT NULL DEFAULT 0;
+ALTER TABLE loans ADD COLUMN IF NOT EXISTS last_payment_date TIMESTAMP(6);
+ALTER TABLE loans ADD COLUMN IF NOT EXISTS repayment_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE loans l
+SET total_repaid        = r.total_repaid,
+    total_interest_paid = r.total_interest_paid,
+    last_payment_date   = r.last_payment_date,
+    repayment_count     = r.repayment_count
+FROM (SELECT loan_id,
+             SUM(amount)                        AS total_repaid,
+             SUM(COALESCE(interest_amount, 0)) AS total_interest_paid,
+             MAX(payment_date)                  AS last_payment_date,
+             COUNT(*)                           AS repayment_count
+      FROM loan_repayments
+      WHERE status = 'COMPLETED'
+      GROUP BY loan_id) r
+WHERE r.loan_id = l.id;
+
+-- Keyset pages of a loan's repayments, newest first; supersedes the plain loan_id index
+CREATE INDEX IF NOT EXISTS idx_loan_repayments_loan_date
+    ON loan_repayments (loan_id, payment_date DESC, id DESC);
+DROP INDEX IF EXISTS idx_loan_id;
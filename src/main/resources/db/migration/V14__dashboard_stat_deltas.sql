@@ -0,0 +1,11 @@
+-- Dashboard deltas are written by the transaction that makes the change, so a
+-- reconciliation scan sees a change and its delta together or neither. Deltas
+-- are folded into dashboard_stats by the flush; the reconciliation deletes the
+-- ones its scan already covers in the same statement.
+
+CREATE TABLE dashboard_stat_deltas (
+    id         BIGSERIAL      PRIMARY KEY,
+    stat_key   VARCHAR(50)    NOT NULL REFERENCES dashboard_stats (stat_key),
+    delta      NUMERIC(19, 2) NOT NULL,
+    created_at TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
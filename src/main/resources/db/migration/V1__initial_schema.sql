@@ -0,0 +1,96 @@
+-- Schema as previously created by Hibernate (ddl-auto: update).
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE IF NOT EXISTS users (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    first_name    VARCHAR(100) NOT NULL,
+    last_name     VARCHAR(100) NOT NULL,
+    phone_number  VARCHAR(20),
+    date_of_birth DATE,
+    address       TEXT,
+    is_active     BOOLEAN,
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS roles (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(50) NOT NULL UNIQUE,
+    description TEXT
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    role_id BIGINT NOT NULL REFERENCES roles (id),
+    PRIMARY KEY (user_id, role_id)
+);
+
+CREATE TABLE IF NOT EXISTS accounts (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_number VARCHAR(20)    NOT NULL UNIQUE,
+    user_id        BIGINT         NOT NULL REFERENCES users (id),
+    account_type   VARCHAR(20)    NOT NULL,
+    balance        NUMERIC(15, 2) NOT NULL,
+    currency       VARCHAR(3),
+    status         VARCHAR(20)    NOT NULL,
+    created_at     TIMESTAMP(6)   NOT NULL,
+    updated_at     TIMESTAMP(6),
+    version        BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id                     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    transaction_ref        VARCHAR(50)    NOT NULL UNIQUE,
+    source_account_id      BIGINT REFERENCES accounts (id),
+    destination_account_id BIGINT REFERENCES accounts (id),
+    transaction_type       VARCHAR(20)    NOT NULL,
+    amount                 NUMERIC(15, 2) NOT NULL,
+    currency               VARCHAR(3),
+    description            TEXT,
+    status                 VARCHAR(20)    NOT NULL,
+    created_at             TIMESTAMP(6)   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_source_account ON transactions (source_account_id);
+CREATE INDEX IF NOT EXISTS idx_destination_account ON transactions (destination_account_id);
+CREATE INDEX IF NOT EXISTS idx_created_at ON transactions (created_at);
+
+CREATE TABLE IF NOT EXISTS loans (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    loan_number         VARCHAR(20)    NOT NULL UNIQUE,
+    user_id             BIGINT         NOT NULL REFERENCES users (id),
+    account_id          BIGINT REFERENCES accounts (id),
+    loan_type           VARCHAR(20)    NOT NULL,
+    principal_amount    NUMERIC(15, 2) NOT NULL,
+    interest_rate       NUMERIC(5, 2)  NOT NULL,
+    term_months         INTEGER        NOT NULL,
+    monthly_payment     NUMERIC(15, 2),
+    outstanding_balance NUMERIC(15, 2),
+    status              VARCHAR(20)    NOT NULL,
+    application_date    TIMESTAMP(6)   NOT NULL,
+    approval_date       TIMESTAMP(6),
+    approved_by         BIGINT REFERENCES users (id),
+    disbursement_date   TIMESTAMP(6),
+    maturity_date       DATE,
+    purpose             TEXT,
+    rejection_reason    TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_id ON loans (user_id);
+CREATE INDEX IF NOT EXISTS idx_status ON loans (status);
+
+CREATE TABLE IF NOT EXISTS loan_repayments (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    loan_id          BIGINT         NOT NULL REFERENCES loans (id),
+    payment_ref      VARCHAR(50)    NOT NULL UNIQUE,
+    amount           NUMERIC(15, 2) NOT NULL,
+    principal_amount NUMERIC(15, 2),
+    interest_amount  NUMERIC(15, 2),
+    payment_date     TIMESTAMP(6)   NOT NULL,
+    payment_method   VARCHAR(20),
+    status           VARCHAR(20)    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_loan_id ON loan_repayments (loan_id);
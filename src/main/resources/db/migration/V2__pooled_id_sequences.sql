@@ -0,0 +1,30 @@
+-- Move entity ids from IDENTITY columns to pooled sequences (allocationSize = 50)
+-- so Hibernate can batch inserts. Each sequence is positioned past the current
+-- maximum id; the first block handed out starts at MAX(id) + 51.
+-- The column default keeps plain SQL inserts working: a single nextval() is the
+-- top of a block nobody else is using.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+SELECT setval('users_seq', COALESCE(MAX(id), 0) + 50) FROM users;
+
+CREATE SEQUENCE IF NOT EXISTS accounts_seq INCREMENT BY 50;
+ALTER TABLE accounts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE accounts ALTER COLUMN id SET DEFAULT nextval('accounts_seq');
+SELECT setval('accounts_seq', COALESCE(MAX(id), 0) + 50) FROM accounts;
+
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transactions_seq');
+SELECT setval('transactions_seq', COALESCE(MAX(id), 0) + 50) FROM transactions;
+
+CREATE SEQUENCE IF NOT EXISTS loans_seq INCREMENT BY 50;
+ALTER TABLE loans ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE loans ALTER COLUMN id SET DEFAULT nextval('loans_seq');
+SELECT setval('loans_seq', COALESCE(MAX(id), 0) + 50) FROM loans;
+
+CREATE SEQUENCE IF NOT EXISTS loan_repayments_seq INCREMENT BY 50;
+ALTER TABLE loan_repayments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE loan_repayments ALTER COLUMN id SET DEFAULT nextval('loan_repayments_seq');
+SELECT setval('loan_repayments_seq', COALESCE(MAX(id), 0) + 50) FROM loan_repayments;
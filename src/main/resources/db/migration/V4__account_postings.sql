@@ -0,0 +1,28 @@
+-- One row per leg of every transaction, so account and user history are single index range scans.
+-- user_id is only set on one leg per (transaction, owner): a transfer between two accounts of the
+-- same user appears once in that user's history.
+CREATE TABLE IF NOT EXISTS account_postings (
+    account_id     BIGINT       NOT NULL REFERENCES accounts (id),
+    transaction_id BIGINT       NOT NULL REFERENCES transactions (id),
+    user_id        BIGINT REFERENCES users (id),
+    entry_type     VARCHAR(6)   NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (account_id, transaction_id)
+);
+
+INSERT INTO account_postings (account_id, transaction_id, user_id, entry_type, created_at)
+SELECT t.source_account_id, t.id, s.user_id, 'DEBIT', t.created_at
+FROM transactions t
+         JOIN accounts s ON s.id = t.source_account_id
+UNION ALL
+SELECT t.destination_account_id, t.id,
+       CASE WHEN s.user_id = d.user_id THEN NULL ELSE d.user_id END, 'CREDIT', t.created_at
+FROM transactions t
+         JOIN accounts d ON d.id = t.destination_account_id
+         LEFT JOIN accounts s ON s.id = t.source_account_id
+ON CONFLICT DO NOTHING;
+
+CREATE INDEX IF NOT EXISTS idx_account_postings_account_created
+    ON account_postings (account_id, created_at DESC, transaction_id DESC);
+CREATE INDEX IF NOT EXISTS idx_account_postings_user_created
+    ON account_postings (user_id, created_at DESC, transaction_id DESC) WHERE user_id IS NOT NULL;
@@ -0,0 +1,5 @@
+-- Account numbers are handed out in blocks: each nextval() reserves the next
+-- INCREMENT BY serials for one node, which then formats them from memory.
+-- The increment is the block size; the allocator reads it from pg_sequences.
+
+CREATE SEQUENCE IF NOT EXISTS account_number_seq START WITH 100 INCREMENT BY 100 MINVALUE 100;
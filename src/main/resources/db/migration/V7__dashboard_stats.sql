@@ -0,0 +1,19 @@
+-- Running totals behind GET /admin/dashboard/stats. Nodes add their deltas with
+-- value = value + ?, and a periodic reconciliation overwrites every row from a
+-- full scan. Counts and amounts share the NUMERIC column.
+
+CREATE TABLE dashboard_stats (
+    stat_key   VARCHAR(50)    PRIMARY KEY,
+    value      NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO dashboard_stats (stat_key, value) VALUES
+    ('totalUsers',     (SELECT COUNT(*) FROM users)),
+    ('totalAccounts',  (SELECT COUNT(*) FROM accounts)),
+    ('activeAccounts', (SELECT COUNT(*) FROM accounts WHERE status = 'ACTIVE')),
+    ('totalDeposits',  (SELECT COALESCE(SUM(balance), 0) FROM accounts WHERE status = 'ACTIVE')),
+    ('pendingLoans',   (SELECT COUNT(*) FROM loans WHERE status = 'PENDING')),
+    ('activeLoans',    (SELECT COUNT(*) FROM loans WHERE status = 'ACTIVE')),
+    ('approvedLoans',  (SELECT COUNT(*) FROM loans WHERE status = 'APPROVED')),
+    ('totalLoans',     (SELECT COALESCE(SUM(outstanding_balance), 0) FROM loans WHERE status = 'ACTIVE'));
@@ -0,0 +1,8 @@
+-- Trigram index behind admin user search. The indexed expression must match the
+-- one used in UserSearchJdbcRepository and UserRepository.searchUsers exactly,
+-- otherwise ILIKE '%term%' falls back to a sequential scan.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_search_trgm
+    ON users USING gin ((first_name || ' ' || last_name || ' ' || email) gin_trgm_ops);
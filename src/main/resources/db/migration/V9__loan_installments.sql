@@ -0,0 +1,21 @@
+-- Amortization schedule written when a loan is disbursed. Repayments settle installments in
+-- order, interest before principal; loans.next_installment points at the first one that is not
+-- fully paid, so a repayment only reads the installments it settles. Loans disbursed before
+-- this migration keep a NULL pointer and no schedule.
+CREATE TABLE IF NOT EXISTS loan_installments (
+    loan_id            BIGINT         NOT NULL REFERENCES loans (id),
+    installment_number INTEGER        NOT NULL,
+    due_date           DATE           NOT NULL,
+    principal_due      NUMERIC(15, 2) NOT NULL,
+    interest_due       NUMERIC(15, 2) NOT NULL,
+    principal_paid     NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    interest_paid      NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    status             VARCHAR(20)    NOT NULL,
+    paid_date          TIMESTAMP(6),
+    PRIMARY KEY (loan_id, installment_number)
+);
+
+ALTER TABLE loans ADD COLUMN IF NOT EXISTS next_installment INTEGER;
+
+-- Concurrent repayments of one loan advance the same pointer
+ALTER TABLE loans ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,179 @@
+package com.banking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batch transfers from a source that cannot cover every item: ALL_OR_NOTHING writes nothing,
+ * BEST_EFFORT applies the items the running balance covers, and a malformed destination
+ * rejects an ALL_OR_NOTHING batch before any account is locked.
+ */
+@SpringBootTest(properties = "jwt.revocation-refresh-ms=3600000")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BatchTransferTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String token;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		String email = "batch-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Batch", "lastName": "Sender"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		token = objectMapper.readTree(body).get("token").asText();
+	}
+
+	@Test
+	void allOrNothingBatchWritesNothingWhenOneItemFails() throws Exception {
+		long source = openAccount("100.00");
+		long destination = openAccount(null);
+
+		MvcResult result = transfer("ALL_OR_NOTHING", source, accountNumber(destination), "60.00", "50.00", "30.00");
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(422);
+		JsonNode response = json(result);
+		assertThat(response.get("successCount").asInt()).isZero();
+		assertThat(response.get("failureCount").asInt()).isEqualTo(3);
+		assertThat(itemStatuses(response)).containsExactly("NOT_APPLIED", "REJECTED", "NOT_APPLIED");
+		assertThat(response.get("results").get(1).get("error").asText()).isEqualTo("Insufficient balance for transfer");
+		assertThat(balance(source)).isEqualByComparingTo("100.00");
+		assertThat(balance(destination)).isEqualByComparingTo("0.00");
+	}
+
+	@Test
+	void bestEffortBatchAppliesWhatTheRunningBalanceCovers() throws Exception {
+		long source = openAccount("100.00");
+		long destination = openAccount(null);
+
+		MvcResult result = transfer("BEST_EFFORT", source, accountNumber(destination), "60.00", "50.00", "30.00");
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(201);
+		JsonNode response = json(result);
+		assertThat(response.get("successCount").asInt()).isEqualTo(2);
+		assertThat(response.get("failureCount").asInt()).isEqualTo(1);
+		assertThat(itemStatuses(response)).containsExactly("COMPLETED", "REJECTED", "COMPLETED");
+		assertThat(response.get("results").get(0).get("transactionRef").asText()).isNotBlank();
+		assertThat(balance(source)).isEqualByComparingTo("10.00");
+		assertThat(balance(destination)).isEqualByComparingTo("90.00");
+	}
+
+	@Test
+	void malformedDestinationRejectsAllOrNothingBatch() throws Exception {
+		long source = openAccount("100.00");
+		long destination = openAccount(null);
+		String malformed = "0000000000";
+		String body = """
+				{"mode": "ALL_OR_NOTHING", "transfers": [
+				  {"sourceAccountId": %d, "destinationAccountNumber": "%s", "amount": 10.00},
+				  {"sourceAccountId": %d, "destinationAccountNumber": "%s", "amount": 10.00}
+				]}
+				""".formatted(source, accountNumber(destination), source, malformed);
+
+		MvcResult result = send(body);
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(422);
+		JsonNode response = json(result);
+		assertThat(itemStatuses(response)).containsExactly("NOT_APPLIED", "REJECTED");
+		assertThat(response.get("results").get(1).get("error").asText()).isEqualTo("Invalid destination account number");
+		assertThat(balance(source)).isEqualByComparingTo("100.00");
+	}
+
+	private MvcResult transfer(String mode, long source, String destination, String... amounts) throws Exception {
+		StringBuilder transfers = new StringBuilder();
+		for (String amount : amounts) {
+			if (!transfers.isEmpty()) {
+				transfers.append(", ");
+			}
+			transfers.append("""
+					{"sourceAccountId": %d, "destinationAccountNumber": "%s", "amount": %s}"""
+					.formatted(source, destination, amount));
+		}
+		return send("""
+				{"mode": "%s", "transfers": [%s]}
+				""".formatted(mode, transfers));
+	}
+
+	private MvcResult send(String body) throws Exception {
+		return mockMvc.perform(post("/transactions/transfers/batch")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body))
+				.andReturn();
+	}
+
+	private long openAccount(String initialDeposit) throws Exception {
+		String content = initialDeposit == null
+				? """
+				{"accountType": "SAVINGS"}
+				"""
+				: """
+				{"accountType": "SAVINGS", "initialDeposit": %s}
+				""".formatted(initialDeposit);
+		String body = mockMvc.perform(post("/accounts")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(content))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("id").asLong();
+	}
+
+	private String accountNumber(long accountId) {
+		return jdbcTemplate.queryForObject("SELECT account_number FROM accounts WHERE id = ?", String.class, accountId);
+	}
+
+	private BigDecimal balance(long accountId) {
+		return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+	}
+
+	private static List<String> itemStatuses(JsonNode response) {
+		List<String> statuses = new ArrayList<>();
+		response.get("results").forEach(item -> statuses.add(item.get("status").asText()));
+		return statuses;
+	}
+
+	private JsonNode json(MvcResult result) throws Exception {
+		return objectMapper.readTree(result.getResponse().getContentAsString());
+	}
+}
@@ -0,0 +1,284 @@
+package com.banking;
+
+import com.banking.dto.TransactionResponse;
+import com.banking.entity.Transaction;
+import com.banking.exception.DuplicateResourceException;
+import com.banking.service.IdempotencyService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Retries of money-moving requests under one Idempotency-Key: replays, a reused key with a
+ * different body, duplicates racing the first request, and responses that must not be stored.
+ */
+@SpringBootTest(properties = {
+		"jwt.revocation-refresh-ms=3600000",
+		"idempotency.wait-timeout-ms=3000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IdempotencyTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	private String email;
+	private String token;
+	private long accountId;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		email = "idempotent-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Idem", "lastName": "Potent"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		token = objectMapper.readTree(body).get("token").asText();
+
+		accountId = json(send(null, "/accounts", """
+				{"accountType": "SAVINGS"}
+				""")).get("id").asLong();
+	}
+
+	@AfterEach
+	void clearSecurityContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void retryReplaysTheFirstResponse() throws Exception {
+		String key = UUID.randomUUID().toString();
+		BigDecimal before = balance();
+
+		MvcResult first = send(key, "/transactions/deposit", depositBody("25.00"));
+		MvcResult second = send(key, "/transactions/deposit", depositBody("25.00"));
+
+		assertThat(first.getResponse().getStatus()).isEqualTo(201);
+		assertThat(first.getResponse().getHeader(IdempotencyService.REPLAYED_HEADER)).isNull();
+		assertThat(second.getResponse().getStatus()).isEqualTo(201);
+		assertThat(second.getResponse().getHeader(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+		assertThat(json(second).get("transactionRef").asText()).isEqualTo(json(first).get("transactionRef").asText());
+		assertThat(balance()).isEqualByComparingTo(before.add(new BigDecimal("25.00")));
+	}
+
+	@Test
+	void keyReusedForAnotherRequestIsRejected() throws Exception {
+		String key = UUID.randomUUID().toString();
+		send(key, "/transactions/deposit", depositBody("10.00"));
+
+		assertThat(send(key, "/transactions/deposit", depositBody("11.00")).getResponse().getStatus())
+				.isEqualTo(400);
+	}
+
+	@Test
+	void concurrentDuplicatesPostOnce() throws Exception {
+		String key = UUID.randomUUID().toString();
+		BigDecimal before = balance();
+		int callers = 6;
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<MvcResult>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(pool.submit(() -> {
+					start.await();
+					return send(key, "/transactions/deposit", depositBody("7.00"));
+				}));
+			}
+			start.countDown();
+
+			List<String> refs = new ArrayList<>();
+			for (Future<MvcResult> result : results) {
+				MvcResult response = result.get(30, TimeUnit.SECONDS);
+				assertThat(response.getResponse().getStatus()).isEqualTo(201);
+				refs.add(json(response).get("transactionRef").asText());
+			}
+			assertThat(refs).containsOnly(refs.get(0));
+		} finally {
+			pool.shutdownNow();
+		}
+		assertThat(balance()).isEqualByComparingTo(before.add(new BigDecimal("7.00")));
+	}
+
+	@Test
+	void rejectedBatchDoesNotKeepItsKey() throws Exception {
+		long emptyAccountId = json(send(null, "/accounts", """
+				{"accountType": "CURRENT"}
+				""")).get("id").asLong();
+		String destination = jdbcTemplate.queryForObject("SELECT account_number FROM accounts WHERE id = ?",
+				String.class, accountId);
+		String batch = """
+				{"mode": "ALL_OR_NOTHING", "transfers": [
+				  {"sourceAccountId": %d, "destinationAccountNumber": "%s", "amount": 5.00}
+				]}
+				""".formatted(emptyAccountId, destination);
+		String key = UUID.randomUUID().toString();
+
+		assertThat(send(key, "/transactions/transfers/batch", batch).getResponse().getStatus()).isEqualTo(422);
+
+		send(null, "/transactions/deposit", """
+				{"accountId": %d, "amount": 5.00}
+				""".formatted(emptyAccountId));
+		MvcResult retried = send(key, "/transactions/transfers/batch", batch);
+		assertThat(retried.getResponse().getStatus()).isEqualTo(201);
+		assertThat(retried.getResponse().getHeader(IdempotencyService.REPLAYED_HEADER)).isNull();
+	}
+
+	@Test
+	void provisionalResponseHoldsTheKeyUntilItSettles() throws Exception {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null));
+		String key = UUID.randomUUID().toString();
+		Map<String, Object> request = Map.of("amount", 1);
+		CompletableFuture<TransactionResponse> outcome = new CompletableFuture<>();
+		AtomicInteger runs = new AtomicInteger();
+
+		ResponseEntity<TransactionResponse> first = idempotencyService.execute(key, "test", request,
+				TransactionResponse.class, () -> {
+					runs.incrementAndGet();
+					return new ResponseEntity<>(response("TXN-P", Transaction.TransactionStatus.PENDING), HttpStatus.CREATED);
+				}, body -> Optional.of(outcome));
+		assertThat(first.getBody().getStatus()).isEqualTo(Transaction.TransactionStatus.PENDING);
+
+		// Still open: the retry waits out its timeout instead of replaying PENDING
+		assertThatThrownBy(() -> idempotencyService.execute(key, "test", request, TransactionResponse.class,
+				() -> {
+					runs.incrementAndGet();
+					return ResponseEntity.ok().build();
+				})).isInstanceOf(DuplicateResourceException.class);
+
+		outcome.complete(response("TXN-P", Transaction.TransactionStatus.COMPLETED));
+		awaitStatus(key, "COMPLETED");
+		ResponseEntity<TransactionResponse> replayed = idempotencyService.execute(key, "test", request,
+				TransactionResponse.class, () -> {
+					runs.incrementAndGet();
+					return ResponseEntity.ok().build();
+				});
+		assertThat(replayed.getStatusCode().value()).isEqualTo(201);
+		assertThat(replayed.getBody().getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+		assertThat(runs).hasValue(1);
+	}
+
+	@Test
+	void provisionalResponseThatFailsReleasesTheKey() throws Exception {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null));
+		String key = UUID.randomUUID().toString();
+		Map<String, Object> request = Map.of("amount", 2);
+		CompletableFuture<TransactionResponse> outcome = new CompletableFuture<>();
+
+		idempotencyService.execute(key, "test", request, TransactionResponse.class,
+				() -> new ResponseEntity<>(response("TXN-F", Transaction.TransactionStatus.PENDING), HttpStatus.CREATED),
+				body -> Optional.of(outcome));
+		outcome.completeExceptionally(new IllegalStateException("Rolled back"));
+		awaitStatus(key, null);
+
+		ResponseEntity<TransactionResponse> retried = idempotencyService.execute(key, "test", request,
+				TransactionResponse.class,
+				() -> new ResponseEntity<>(response("TXN-R", Transaction.TransactionStatus.COMPLETED), HttpStatus.CREATED));
+		assertThat(retried.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+		assertThat(retried.getBody().getTransactionRef()).isEqualTo("TXN-R");
+	}
+
+	private static TransactionResponse response(String ref, Transaction.TransactionStatus status) {
+		return TransactionResponse.builder()
+				.transactionRef(ref)
+				.transactionType(Transaction.TransactionType.DEPOSIT)
+				.amount(BigDecimal.ONE)
+				.status(status)
+				.build();
+	}
+
+	// The outcome is recorded off the settling thread
+	private void awaitStatus(String key, String expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (true) {
+			List<String> statuses = jdbcTemplate.queryForList(
+					"SELECT status FROM idempotency_keys WHERE owner = ? AND idempotency_key = ?",
+					String.class, email, key);
+			String status = statuses.isEmpty() ? null : statuses.get(0);
+			if (expected == null ? status == null : expected.equals(status)) {
+				return;
+			}
+			assertThat(System.currentTimeMillis()).as("idempotency key status %s", expected).isLessThan(deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	private String depositBody(String amount) {
+		return """
+				{"accountId": %d, "amount": %s}
+				""".formatted(accountId, amount);
+	}
+
+	private MvcResult send(String key, String path, String content) throws Exception {
+		var request = post(path)
+				.header("Authorization", "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(content);
+		if (key != null) {
+			request.header(IdempotencyService.HEADER, key);
+		}
+		return mockMvc.perform(request).andReturn();
+	}
+
+	private BigDecimal balance() {
+		return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+	}
+
+	private JsonNode json(MvcResult result) throws Exception {
+		return objectMapper.readTree(result.getResponse().getContentAsString());
+	}
+}
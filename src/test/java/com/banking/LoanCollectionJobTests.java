@@ -0,0 +1,166 @@
+package com.banking;
+
+import com.banking.service.LoanCollectionJob;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Drives the auto-debit job over one loan whose account runs dry: the loan is deferred, given
+ * up on after its attempts, left alone while nothing new is due, and collected again once the
+ * next installment falls due and the account is funded.
+ */
+@SpringBootTest(properties = {
+		"jwt.revocation-refresh-ms=3600000",
+		"loan-collection.max-attempts=2"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LoanCollectionJobTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private LoanCollectionJob loanCollectionJob;
+
+	private String customerToken;
+	private String adminToken;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		String run = UUID.randomUUID().toString().substring(0, 8);
+		String customerEmail = "debtor-" + run + "@example.com";
+		String adminEmail = "collection-admin-" + run + "@example.com";
+		register(customerEmail);
+		register(adminEmail);
+
+		jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('ADMIN', 'Administrator') " +
+				"ON CONFLICT (name) DO NOTHING");
+		jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) " +
+				"SELECT u.id, r.id FROM users u, roles r WHERE u.email = ? AND r.name = 'ADMIN'", adminEmail);
+
+		customerToken = login(customerEmail);
+		adminToken = login(adminEmail);
+	}
+
+	@Test
+	void exhaustedLoanIsCollectedAgainOnceTheNextInstallmentFallsDue() throws Exception {
+		long accountId = perform(post("/accounts"), customerToken, """
+				{"accountType": "SAVINGS"}
+				""").get("id").asLong();
+		JsonNode application = perform(post("/loans/apply"), customerToken, """
+				{"accountId": %d, "loanType": "PERSONAL", "principalAmount": 1200.00, "termMonths": 12,
+				 "purpose": "Collection retries"}
+				""".formatted(accountId));
+		long loanId = jdbcTemplate.queryForObject("SELECT id FROM loans WHERE loan_number = ?", Long.class,
+				application.get("loanNumber").asText());
+		perform(put("/admin/loans/" + loanId + "/approve"), adminToken, """
+				{"interestRate": 12.00}
+				""");
+		perform(put("/admin/loans/" + loanId + "/disburse"), adminToken, "{}");
+
+		// The first installment fell due yesterday, the next one is due in 29 days
+		LocalDate today = LocalDate.now();
+		LocalDate nextDueDate = today.plusDays(29);
+		jdbcTemplate.update("UPDATE loan_installments SET due_date = CAST(? AS DATE) + (installment_number - 1) * 30 " +
+				"WHERE loan_id = ?", Date.valueOf(today.minusDays(1)), loanId);
+		setBalance(accountId, "0.00");
+
+		collect(today);
+		assertThat(retry(loanId)).containsEntry("status", "PENDING").containsEntry("attempts", 1);
+
+		jdbcTemplate.update("UPDATE loan_collection_retries SET next_attempt_at = now() - INTERVAL '1 hour' " +
+				"WHERE loan_id = ?", loanId);
+		loanCollectionJob.retryDeferred();
+		assertThat(retry(loanId)).containsEntry("status", "EXHAUSTED").containsEntry("attempts", 2);
+
+		// Nothing new is due, so the daily pass leaves the exhausted loan alone
+		collect(today);
+		assertThat(retry(loanId)).containsEntry("status", "EXHAUSTED").containsEntry("attempts", 2);
+
+		setBalance(accountId, "5000.00");
+		collect(nextDueDate);
+		assertThat(jdbcTemplate.queryForList("SELECT 1 FROM loan_collection_retries WHERE loan_id = ?", loanId))
+				.isEmpty();
+		assertThat(jdbcTemplate.queryForObject("SELECT next_installment FROM loans WHERE id = ?", Integer.class,
+				loanId)).isEqualTo(3);
+	}
+
+	// Runs the date again from scratch, as a fresh trigger would
+	private void collect(LocalDate collectionDate) {
+		jdbcTemplate.update("DELETE FROM loan_collection_runs WHERE collection_date = ?", Date.valueOf(collectionDate));
+		loanCollectionJob.run(collectionDate);
+	}
+
+	private void setBalance(long accountId, String balance) {
+		jdbcTemplate.update("UPDATE accounts SET balance = CAST(? AS NUMERIC), version = version + 1 WHERE id = ?",
+				balance, accountId);
+	}
+
+	private Map<String, Object> retry(long loanId) {
+		List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+				"SELECT status, attempts FROM loan_collection_retries WHERE loan_id = ?", loanId);
+		assertThat(rows).hasSize(1);
+		return rows.get(0);
+	}
+
+	private JsonNode perform(MockHttpServletRequestBuilder request, String token, String content) throws Exception {
+		request.header("Authorization", "Bearer " + token);
+		if (content != null) {
+			request.contentType(MediaType.APPLICATION_JSON).content(content);
+		}
+		String body = mockMvc.perform(request)
+				.andExpect(status().is2xxSuccessful())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private void register(String email) throws Exception {
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Loan", "lastName": "Collection"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+	}
+
+	private String login(String email) throws Exception {
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("token").asText();
+	}
+}
@@ -0,0 +1,201 @@
+package com.banking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Applies for, disburses and repays loans through the API: the timestamps and running totals
+ * written with a repayment, a prepayment that re-amortizes the schedule, and a payoff.
+ */
+@SpringBootTest(properties = "jwt.revocation-refresh-ms=3600000")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LoanRepaymentTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String customerToken;
+	private String adminToken;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		String run = UUID.randomUUID().toString().substring(0, 8);
+		String customerEmail = "borrower-" + run + "@example.com";
+		String adminEmail = "loan-admin-" + run + "@example.com";
+		register(customerEmail);
+		register(adminEmail);
+
+		jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('ADMIN', 'Administrator') " +
+				"ON CONFLICT (name) DO NOTHING");
+		jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) " +
+				"SELECT u.id, r.id FROM users u, roles r WHERE u.email = ? AND r.name = 'ADMIN'", adminEmail);
+
+		customerToken = login(customerEmail);
+		adminToken = login(adminEmail);
+	}
+
+	@Test
+	void repaymentSetsPaymentDateAndLastPaymentDate() throws Exception {
+		long loanId = disbursedLoan();
+
+		JsonNode repayment = perform(post("/loans/" + loanId + "/repay"), customerToken, """
+				{"amount": 150.00, "paymentMethod": "DEBIT"}
+				""");
+		assertThat(repayment.get("paymentDate").isNull()).isFalse();
+		LocalDateTime paymentDate = LocalDateTime.parse(repayment.get("paymentDate").asText());
+
+		Timestamp lastPaymentDate = jdbcTemplate.queryForObject(
+				"SELECT last_payment_date FROM loans WHERE id = ?", Timestamp.class, loanId);
+		assertThat(lastPaymentDate).isNotNull();
+
+		JsonNode repayments = perform(get("/loans/" + loanId + "/repayments"), customerToken, null);
+		// The column keeps microseconds
+		assertThat(LocalDateTime.parse(repayments.get("lastPaymentDate").asText()))
+				.isCloseTo(paymentDate, within(1, ChronoUnit.MILLIS));
+		assertThat(repayments.get("repaymentCount").asInt()).isEqualTo(1);
+		assertThat(repayments.get("totalRepaid").decimalValue()).isEqualByComparingTo("150.00");
+		assertThat(repayments.get("repayments").get(0).get("paymentDate").asText())
+				.isEqualTo(repayments.get("lastPaymentDate").asText());
+	}
+
+	@Test
+	void prepaymentReamortizesTheRemainingInstallments() throws Exception {
+		long loanId = disbursedLoan();
+		JsonNode first = perform(get("/loans/" + loanId + "/schedule"), customerToken, null).get("installments").get(0);
+		BigDecimal installment = first.get("totalDue").decimalValue();
+		BigDecimal scheduledPrincipal = first.get("principalDue").decimalValue();
+
+		JsonNode repayment = perform(post("/loans/" + loanId + "/repay"), customerToken, """
+				{"amount": %s, "paymentMethod": "DEBIT"}
+				""".formatted(installment.add(new BigDecimal("300.00"))));
+		BigDecimal remaining = new BigDecimal("1200.00").subtract(scheduledPrincipal).subtract(new BigDecimal("300.00"));
+		assertThat(repayment.get("remainingBalance").decimalValue()).isEqualByComparingTo(remaining);
+
+		JsonNode schedule = perform(get("/loans/" + loanId + "/schedule"), customerToken, null);
+		JsonNode installments = schedule.get("installments");
+		assertThat(schedule.get("nextInstallment").asInt()).isEqualTo(2);
+		assertThat(installments.get(0).get("status").asText()).isEqualTo("PAID");
+		assertThat(installments.get(0).get("principalDue").decimalValue())
+				.isEqualByComparingTo(scheduledPrincipal.add(new BigDecimal("300.00")));
+		BigDecimal futurePrincipal = BigDecimal.ZERO;
+		for (int i = 1; i < installments.size(); i++) {
+			futurePrincipal = futurePrincipal.add(installments.get(i).get("principalDue").decimalValue());
+		}
+		assertThat(futurePrincipal).isEqualByComparingTo(remaining);
+		assertThat(installments.get(1).get("totalDue").decimalValue()).isLessThan(installment);
+		assertThat(schedule.get("monthlyPayment").decimalValue()).isLessThan(installment);
+	}
+
+	@Test
+	void payingTheOutstandingPrincipalAndCurrentInterestClosesTheLoan() throws Exception {
+		long loanId = disbursedLoan();
+		JsonNode schedule = perform(get("/loans/" + loanId + "/schedule"), customerToken, null);
+		BigDecimal payoff = schedule.get("outstandingBalance").decimalValue()
+				.add(schedule.get("installments").get(0).get("interestDue").decimalValue());
+
+		mockMvc.perform(post("/loans/" + loanId + "/repay")
+						.header("Authorization", "Bearer " + customerToken)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"amount": %s, "paymentMethod": "DEBIT"}
+								""".formatted(payoff.add(new BigDecimal("0.01")))))
+				.andExpect(status().isBadRequest());
+
+		JsonNode repayment = perform(post("/loans/" + loanId + "/repay"), customerToken, """
+				{"amount": %s, "paymentMethod": "DEBIT"}
+				""".formatted(payoff));
+		assertThat(repayment.get("remainingBalance").decimalValue()).isEqualByComparingTo("0");
+		assertThat(perform(get("/loans/" + loanId), customerToken, null).get("status").asText()).isEqualTo("CLOSED");
+
+		JsonNode closed = perform(get("/loans/" + loanId + "/schedule"), customerToken, null);
+		assertThat(closed.get("nextInstallment").isNull()).isTrue();
+		closed.get("installments").forEach(installment -> {
+			assertThat(installment.get("status").asText()).isEqualTo("PAID");
+			assertThat(installment.get("amountOutstanding").decimalValue()).isEqualByComparingTo("0");
+		});
+	}
+
+	// A 1200.00, 12-month loan at 12% on a fresh account, approved and disbursed
+	private long disbursedLoan() throws Exception {
+		long accountId = perform(post("/accounts"), customerToken, """
+				{"accountType": "SAVINGS"}
+				""").get("id").asLong();
+
+		JsonNode application = perform(post("/loans/apply"), customerToken, """
+				{"accountId": %d, "loanType": "PERSONAL", "principalAmount": 1200.00, "termMonths": 12,
+				 "purpose": "Repayment totals"}
+				""".formatted(accountId));
+		assertThat(application.get("applicationDate").isNull()).isFalse();
+
+		long loanId = jdbcTemplate.queryForObject("SELECT id FROM loans WHERE loan_number = ?", Long.class,
+				application.get("loanNumber").asText());
+		perform(put("/admin/loans/" + loanId + "/approve"), adminToken, """
+				{"interestRate": 12.00}
+				""");
+		perform(put("/admin/loans/" + loanId + "/disburse"), adminToken, "{}");
+		return loanId;
+	}
+
+	private JsonNode perform(MockHttpServletRequestBuilder request, String token, String content) throws Exception {
+		request.header("Authorization", "Bearer " + token);
+		if (content != null) {
+			request.contentType(MediaType.APPLICATION_JSON).content(content);
+		}
+		String body = mockMvc.perform(request)
+				.andExpect(status().is2xxSuccessful())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private void register(String email) throws Exception {
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Loan", "lastName": "Repayment"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+	}
+
+	private String login(String email) throws Exception {
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("token").asText();
+	}
+}
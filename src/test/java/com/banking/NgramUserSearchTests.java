@@ -0,0 +1,13 @@
+package com.banking;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The {@link UserSearchTests} cases against the in-process n-gram index.
+ */
+@SpringBootTest(properties = {
+		"jwt.revocation-refresh-ms=3600000",
+		"user-search.engine=ngram"
+})
+class NgramUserSearchTests extends UserSearchTests {
+}
@@ -0,0 +1,162 @@
+package com.banking;
+
+import com.banking.dto.DepositRequest;
+import com.banking.service.JpaPostingEngine;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Deposits whose posting keeps losing the optimistic-lock race: one conflict is retried away,
+ * and a posting that conflicts on every attempt gives up with 409 after
+ * {@code retry.max-attempts}, counting each retry and the give-up.
+ */
+@SpringBootTest(properties = {
+		"jwt.revocation-refresh-ms=3600000",
+		"retry.max-attempts=3",
+		"retry.initial-backoff-ms=1",
+		"retry.max-backoff-ms=5"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OptimisticRetryTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+	private static final String OPERATION = "transactions.deposit";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@SpyBean
+	private JpaPostingEngine postingEngine;
+
+	private String token;
+	private long accountId;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		String email = "retry-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Retry", "lastName": "Writer"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		token = objectMapper.readTree(body).get("token").asText();
+
+		body = mockMvc.perform(post("/accounts")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"accountType": "SAVINGS"}
+								"""))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		accountId = objectMapper.readTree(body).get("id").asLong();
+	}
+
+	@AfterEach
+	void resetSpy() {
+		Mockito.reset(postingEngine);
+	}
+
+	@Test
+	void singleConflictIsRetriedAway() throws Exception {
+		double retried = count("posting.retry.attempts");
+		double exhausted = count("posting.retry.exhausted");
+		BigDecimal before = balance();
+		doThrow(new OptimisticLockingFailureException("Account was modified concurrently"))
+				.doCallRealMethod()
+				.when(postingEngine).deposit(any(DepositRequest.class));
+
+		MvcResult result = deposit("15.00");
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(201);
+		assertThat(json(result).get("status").asText()).isEqualTo("COMPLETED");
+		verify(postingEngine, times(2)).deposit(any(DepositRequest.class));
+		assertThat(count("posting.retry.attempts") - retried).isEqualTo(1.0);
+		assertThat(count("posting.retry.exhausted") - exhausted).isZero();
+		assertThat(balance()).isEqualByComparingTo(before.add(new BigDecimal("15.00")));
+	}
+
+	@Test
+	void conflictOnEveryAttemptGivesUpWithConflict() throws Exception {
+		double retried = count("posting.retry.attempts");
+		double exhausted = count("posting.retry.exhausted");
+		BigDecimal before = balance();
+		doThrow(new OptimisticLockingFailureException("Account was modified concurrently"))
+				.when(postingEngine).deposit(any(DepositRequest.class));
+
+		MvcResult result = deposit("15.00");
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(409);
+		assertThat(json(result).get("message").asText()).isEqualTo("Account was modified concurrently, please retry");
+		verify(postingEngine, times(3)).deposit(any(DepositRequest.class));
+		assertThat(count("posting.retry.attempts") - retried).isEqualTo(2.0);
+		assertThat(count("posting.retry.exhausted") - exhausted).isEqualTo(1.0);
+		assertThat(balance()).isEqualByComparingTo(before);
+	}
+
+	private double count(String name) {
+		return meterRegistry.counter(name, "operation", OPERATION).count();
+	}
+
+	private MvcResult deposit(String amount) throws Exception {
+		return mockMvc.perform(post("/transactions/deposit")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"accountId": %d, "amount": %s}
+								""".formatted(accountId, amount)))
+				.andReturn();
+	}
+
+	private BigDecimal balance() {
+		return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+	}
+
+	private JsonNode json(MvcResult result) throws Exception {
+		return objectMapper.readTree(result.getResponse().getContentAsString());
+	}
+}
@@ -0,0 +1,158 @@
+package com.banking;
+
+import com.banking.repository.UserRepository;
+import com.banking.security.CustomUserDetailsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the read paths that used to load roles per user to a fixed number of SQL statements,
+ * counted with Hibernate statistics. Each path is called once before measuring so the role
+ * catalog is warm.
+ */
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"jwt.authentication-mode=claims",
+		"jwt.revocation-refresh-ms=3600000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryCountTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private String customerEmail;
+	private String customerToken;
+	private String adminToken;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		String run = UUID.randomUUID().toString().substring(0, 8);
+		customerEmail = "customer-" + run + "@example.com";
+		String adminEmail = "admin-" + run + "@example.com";
+		register(customerEmail);
+		register(adminEmail);
+		register("filler-a-" + run + "@example.com");
+		register("filler-b-" + run + "@example.com");
+
+		jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('ADMIN', 'Administrator') " +
+				"ON CONFLICT (name) DO NOTHING");
+		jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) " +
+				"SELECT u.id, r.id FROM users u, roles r WHERE u.email = ? AND r.name = 'ADMIN'", adminEmail);
+
+		customerToken = login(customerEmail).get("token").asText();
+		adminToken = login(adminEmail).get("token").asText();
+	}
+
+	@Test
+	void loginRunsFourStatements() throws Exception {
+		// Credentials with role ids, the user row, its role ids and the refresh token insert
+		assertThat(countStatements(() -> login(customerEmail))).isEqualTo(4);
+	}
+
+	@Test
+	void currentUserRunsTwoStatements() throws Exception {
+		getCurrentUser();
+
+		assertThat(countStatements(this::getCurrentUser)).isEqualTo(2);
+	}
+
+	@Test
+	void userDetailsLookupRunsOneStatement() throws Exception {
+		userDetailsService.loadUserByUsername(customerEmail);
+
+		assertThat(countStatements(() -> userDetailsService.loadUserByUsername(customerEmail))).isEqualTo(1);
+	}
+
+	@Test
+	void adminUserListDoesNotGrowWithPageSize() throws Exception {
+		listUsers(2);
+		assertThat(userRepository.count()).isGreaterThan(3);
+
+		// Page, count and the role ids of the whole page
+		assertThat(countStatements(() -> listUsers(2))).isEqualTo(3);
+		assertThat(countStatements(() -> listUsers(3))).isEqualTo(3);
+	}
+
+	private long countStatements(ThrowingRunnable action) throws Exception {
+		statistics.clear();
+		action.run();
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void register(String email) throws Exception {
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Query", "lastName": "Count"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+	}
+
+	private JsonNode login(String email) throws Exception {
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private void getCurrentUser() throws Exception {
+		mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + customerToken))
+				.andExpect(status().isOk());
+	}
+
+	private void listUsers(int size) throws Exception {
+		mockMvc.perform(get("/admin/users").param("page", "0").param("size", String.valueOf(size))
+						.header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isOk());
+	}
+
+	@FunctionalInterface
+	private interface ThrowingRunnable {
+		void run() throws Exception;
+	}
+}
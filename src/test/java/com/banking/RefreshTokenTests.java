@@ -0,0 +1,113 @@
+package com.banking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Refresh-token rotation: each exchange hands out a successor, and presenting a token that was
+ * already exchanged revokes every token of its family while other logins keep working.
+ */
+@SpringBootTest(properties = "jwt.revocation-refresh-ms=3600000")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RefreshTokenTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private String email;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		email = "refresh-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Token", "lastName": "Holder"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+	}
+
+	@Test
+	void rotationHandsOutASuccessor() throws Exception {
+		String first = login().get("refreshToken").asText();
+
+		MvcResult rotated = refresh(first);
+
+		assertThat(rotated.getResponse().getStatus()).isEqualTo(200);
+		JsonNode response = json(rotated);
+		assertThat(response.get("token").asText()).isNotBlank();
+		String second = response.get("refreshToken").asText();
+		assertThat(second).isNotEqualTo(first);
+		assertThat(refresh(second).getResponse().getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void reusingARotatedTokenRevokesTheFamily() throws Exception {
+		String stolen = login().get("refreshToken").asText();
+		String otherLogin = login().get("refreshToken").asText();
+		String successor = json(refresh(stolen)).get("refreshToken").asText();
+
+		MvcResult reused = refresh(stolen);
+		assertThat(reused.getResponse().getStatus()).isEqualTo(401);
+		assertThat(json(reused).get("message").asText()).isEqualTo("Refresh token was already used; please log in again");
+
+		MvcResult revoked = refresh(successor);
+		assertThat(revoked.getResponse().getStatus()).isEqualTo(401);
+		assertThat(json(revoked).get("message").asText()).isEqualTo("Refresh token has been revoked");
+
+		assertThat(refresh(otherLogin).getResponse().getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void unknownTokenIsRejected() throws Exception {
+		MvcResult result = refresh("not-a-refresh-token");
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(401);
+		assertThat(json(result).get("message").asText()).isEqualTo("Invalid refresh token");
+	}
+
+	private JsonNode login() throws Exception {
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private MvcResult refresh(String refreshToken) throws Exception {
+		return mockMvc.perform(post("/auth/refresh")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"refreshToken": "%s"}
+								""".formatted(refreshToken)))
+				.andReturn();
+	}
+
+	private JsonNode json(MvcResult result) throws Exception {
+		return objectMapper.readTree(result.getResponse().getContentAsString());
+	}
+}
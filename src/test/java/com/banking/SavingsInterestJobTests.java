@@ -0,0 +1,159 @@
+package com.banking;
+
+import com.banking.service.SavingsInterestJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A savings interest run whose only range fails on a locked account: the chunk rolls back to
+ * its checkpoint, and the next pass of the same run credits the account once the lock is gone.
+ * <p>
+ * The run covers January 1999, so that the account under test, dated into that month, is the
+ * only interest-bearing account it sees.
+ */
+@SpringBootTest(properties = {
+		"jwt.revocation-refresh-ms=3600000",
+		"savings-interest.lock-timeout-ms=1000",
+		"savings-interest.max-attempts=3",
+		"savings-interest.retry-backoff-ms=1000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SavingsInterestJobTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+	private static final LocalDate PERIOD = LocalDate.of(1999, 1, 1);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private SavingsInterestJob savingsInterestJob;
+
+	private String token;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		String email = "saver-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Interest", "lastName": "Saver"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		token = objectMapper.readTree(body).get("token").asText();
+
+		// Start the period from scratch, without the accounts earlier runs dated into it
+		jdbcTemplate.update("DELETE FROM savings_interest_postings WHERE period_start = ?", Date.valueOf(PERIOD));
+		jdbcTemplate.update("DELETE FROM savings_interest_runs WHERE period_start = ?", Date.valueOf(PERIOD));
+		jdbcTemplate.update("UPDATE accounts SET status = 'CLOSED' WHERE created_at < ?",
+				Date.valueOf(PERIOD.plusMonths(1)));
+	}
+
+	@Test
+	void lockedRangeIsRetriedByTheNextPass() throws Exception {
+		long accountId = openAccount("1000.00");
+		// Opened on the 1st, the deposit landed on the 11th: 21 days of 1000.00
+		jdbcTemplate.update("UPDATE accounts SET created_at = ? WHERE id = ?", Date.valueOf(PERIOD), accountId);
+		jdbcTemplate.update("UPDATE account_postings SET created_at = ? WHERE account_id = ?",
+				Date.valueOf(PERIOD.plusDays(10)), accountId);
+
+		ExecutorService runner = Executors.newSingleThreadExecutor();
+		try (Connection blocker = dataSource.getConnection()) {
+			blocker.setAutoCommit(false);
+			try (PreparedStatement lock = blocker.prepareStatement("SELECT 1 FROM accounts WHERE id = ? FOR UPDATE")) {
+				lock.setLong(1, accountId);
+				lock.executeQuery().close();
+			}
+
+			Future<Long> run = runner.submit(() -> savingsInterestJob.run(PERIOD));
+
+			// The first pass waits on the row and gives up after the lock timeout
+			awaitLockWaiters(true);
+			awaitLockWaiters(false);
+			assertThat(run.isDone()).isFalse();
+			assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM savings_interest_postings " +
+					"WHERE period_start = ?", Long.class, Date.valueOf(PERIOD))).isZero();
+
+			blocker.rollback();
+			assertThat(run.get(30, TimeUnit.SECONDS)).isEqualTo(1L);
+		} finally {
+			runner.shutdownNow();
+		}
+
+		assertThat(jdbcTemplate.queryForObject("SELECT amount FROM savings_interest_postings " +
+				"WHERE period_start = ? AND account_id = ?", BigDecimal.class, Date.valueOf(PERIOD), accountId))
+				.isEqualByComparingTo("1.44");
+		assertThat(jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class,
+				accountId)).isEqualByComparingTo("1001.44");
+		assertThat(jdbcTemplate.queryForList("SELECT status FROM savings_interest_runs WHERE period_start = ?",
+				String.class, Date.valueOf(PERIOD))).containsOnly("COMPLETED");
+
+		// The month is complete, so another trigger pays nothing
+		assertThat(savingsInterestJob.run(PERIOD)).isZero();
+	}
+
+	private void awaitLockWaiters(boolean present) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (true) {
+			long waiters = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_locks WHERE NOT granted", Long.class);
+			if ((waiters > 0) == present) {
+				return;
+			}
+			assertThat(System.currentTimeMillis()).as("lock waiters present: %s", present).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private long openAccount(String initialDeposit) throws Exception {
+		String body = mockMvc.perform(post("/accounts")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"accountType": "SAVINGS", "initialDeposit": %s}
+								""".formatted(initialDeposit)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("id").asLong();
+	}
+}
@@ -0,0 +1,197 @@
+package com.banking;
+
+import com.banking.service.IdempotencyService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Postings through the sharded engine: concurrent deposits to one account committed by its
+ * shard, and a shard held up in its commit, where the caller that was already claimed gets
+ * PENDING and the one still queued is dropped.
+ */
+@SpringBootTest(properties = {
+		"jwt.revocation-refresh-ms=3600000",
+		"posting.engine=sharded",
+		"posting.shards=4",
+		"posting.timeout-ms=1000",
+		"idempotency.wait-timeout-ms=500"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardedPostingEngineTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	private String token;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		String email = "sharded-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "Shard", "lastName": "Writer"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isCreated());
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		token = objectMapper.readTree(body).get("token").asText();
+	}
+
+	@Test
+	void concurrentDepositsToOneAccountAllCommit() throws Exception {
+		long accountId = openAccount();
+		int callers = 20;
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<MvcResult>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(pool.submit(() -> {
+					start.await();
+					return deposit(accountId, "5.00", null);
+				}));
+			}
+			start.countDown();
+			for (Future<MvcResult> result : results) {
+				MvcResult response = result.get(30, TimeUnit.SECONDS);
+				assertThat(response.getResponse().getStatus()).isEqualTo(201);
+				assertThat(json(response).get("status").asText()).isEqualTo("COMPLETED");
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(balance(accountId)).isEqualByComparingTo("100.00");
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE destination_account_id = ?",
+				Long.class, accountId)).isEqualTo(callers);
+	}
+
+	@Test
+	void postingHeldUpInCommitComesBackPendingAndSettles() throws Exception {
+		long accountId = openAccount();
+		String key = UUID.randomUUID().toString();
+
+		// Another transaction holds the account row, so the shard's balance write waits on it
+		try (Connection blocker = dataSource.getConnection()) {
+			blocker.setAutoCommit(false);
+			try (PreparedStatement lock = blocker.prepareStatement("SELECT 1 FROM accounts WHERE id = ? FOR UPDATE")) {
+				lock.setLong(1, accountId);
+				lock.executeQuery().close();
+			}
+
+			MvcResult claimed = deposit(accountId, "10.00", key);
+			assertThat(claimed.getResponse().getStatus()).isEqualTo(201);
+			assertThat(json(claimed).get("status").asText()).isEqualTo("PENDING");
+			String transactionRef = json(claimed).get("transactionRef").asText();
+
+			// Its key stays open while the outcome is unknown
+			assertThat(deposit(accountId, "10.00", key).getResponse().getStatus()).isEqualTo(409);
+
+			// Queued behind it and never started: dropped
+			MvcResult dropped = deposit(accountId, "20.00", null);
+			assertThat(dropped.getResponse().getStatus()).isEqualTo(500);
+			assertThat(json(dropped).get("message").asText()).contains("nothing was posted");
+
+			blocker.rollback();
+
+			MvcResult settled = awaitReplay(accountId, key);
+			assertThat(json(settled).get("status").asText()).isEqualTo("COMPLETED");
+			assertThat(json(settled).get("transactionRef").asText()).isEqualTo(transactionRef);
+		}
+
+		assertThat(balance(accountId)).isEqualByComparingTo("10.00");
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE destination_account_id = ?",
+				Long.class, accountId)).isEqualTo(1L);
+	}
+
+	// The settled response is stored off the shard's thread
+	private MvcResult awaitReplay(long accountId, String key) throws Exception {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (true) {
+			MvcResult result = deposit(accountId, "10.00", key);
+			if ("true".equals(result.getResponse().getHeader(IdempotencyService.REPLAYED_HEADER))) {
+				return result;
+			}
+			assertThat(result.getResponse().getStatus()).isEqualTo(409);
+			assertThat(System.currentTimeMillis()).as("settled response replayed").isLessThan(deadline);
+		}
+	}
+
+	private long openAccount() throws Exception {
+		String body = mockMvc.perform(post("/accounts")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"accountType": "SAVINGS"}
+								"""))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("id").asLong();
+	}
+
+	private MvcResult deposit(long accountId, String amount, String key) throws Exception {
+		var request = post("/transactions/deposit")
+				.header("Authorization", "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("""
+						{"accountId": %d, "amount": %s}
+						""".formatted(accountId, amount));
+		if (key != null) {
+			request.header(IdempotencyService.HEADER, key);
+		}
+		return mockMvc.perform(request).andReturn();
+	}
+
+	private BigDecimal balance(long accountId) {
+		return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+	}
+
+	private JsonNode json(MvcResult result) throws Exception {
+		return objectMapper.readTree(result.getResponse().getContentAsString());
+	}
+}
@@ -0,0 +1,176 @@
+package com.banking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admin user search over the default pg_trgm engine: whole-word matches rank above partial
+ * ones, an account number finds its owner first, and the keyset cursor walks tied scores
+ * without skipping or repeating anyone. {@link NgramUserSearchTests} runs the same cases
+ * against the in-process index.
+ */
+@SpringBootTest(properties = "jwt.revocation-refresh-ms=3600000")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserSearchTests {
+
+	private static final String PASSWORD = "Passw0rd@123";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String adminToken;
+	private String term;
+	private final List<String> wholeWordEmails = new ArrayList<>();
+	private final List<String> partialEmails = new ArrayList<>();
+	private String accountNumber;
+
+	@BeforeAll
+	void setUp() throws Exception {
+		String run = UUID.randomUUID().toString().substring(0, 8);
+		// Letters only, so the term cannot collide with names or emails left by other runs
+		StringBuilder letters = new StringBuilder();
+		for (int i = 0; i < 8; i++) {
+			letters.append((char) ('a' + ThreadLocalRandom.current().nextInt(26)));
+		}
+		term = letters.toString();
+
+		String adminEmail = "search-admin-" + run + "@example.com";
+		register(adminEmail, "Search", "Admin");
+		jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('ADMIN', 'Administrator') " +
+				"ON CONFLICT (name) DO NOTHING");
+		jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) " +
+				"SELECT u.id, r.id FROM users u, roles r WHERE u.email = ? AND r.name = 'ADMIN'", adminEmail);
+		adminToken = login(adminEmail);
+
+		for (int i = 0; i < 3; i++) {
+			String email = "whole" + i + "-" + run + "@example.com";
+			register(email, "Searched", term);
+			wholeWordEmails.add(email);
+		}
+		for (int i = 0; i < 2; i++) {
+			String email = "partial" + i + "-" + run + "@example.com";
+			register(email, "Searched", term + "son");
+			partialEmails.add(email);
+		}
+
+		String ownerToken = login(partialEmails.get(1));
+		String body = mockMvc.perform(post("/accounts")
+						.header("Authorization", "Bearer " + ownerToken)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"accountType": "SAVINGS"}
+								"""))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		accountNumber = objectMapper.readTree(body).get("accountNumber").asText();
+	}
+
+	@Test
+	void wholeWordMatchesRankAbovePartialOnes() throws Exception {
+		List<String> emails = emails(search(term, 10, null));
+
+		assertThat(emails).hasSize(5);
+		assertThat(emails.subList(0, 3)).containsExactlyInAnyOrderElementsOf(wholeWordEmails);
+		assertThat(emails.subList(3, 5)).containsExactlyInAnyOrderElementsOf(partialEmails);
+	}
+
+	@Test
+	void accountNumberFindsItsOwnerFirst() throws Exception {
+		List<String> emails = emails(search(accountNumber, 10, null));
+
+		assertThat(emails).first().isEqualTo(partialEmails.get(1));
+	}
+
+	@Test
+	void cursorWalksEveryMatchOnce() throws Exception {
+		List<String> expected = emails(search(term, 10, null));
+
+		List<String> walked = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			JsonNode page = search(term, 2, cursor);
+			walked.addAll(emails(page));
+			cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(walked).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	void malformedCursorIsRejected() throws Exception {
+		mockMvc.perform(get("/admin/users/search")
+						.header("Authorization", "Bearer " + adminToken)
+						.param("q", term)
+						.param("cursor", "not-a-cursor"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private JsonNode search(String q, int size, String cursor) throws Exception {
+		var request = get("/admin/users/search")
+				.header("Authorization", "Bearer " + adminToken)
+				.param("q", q)
+				.param("size", String.valueOf(size));
+		if (cursor != null) {
+			request.param("cursor", cursor);
+		}
+		String body = mockMvc.perform(request)
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private static List<String> emails(JsonNode page) {
+		List<String> emails = new ArrayList<>();
+		page.get("users").forEach(user -> emails.add(user.get("email").asText()));
+		return emails;
+	}
+
+	private void register(String email, String firstName, String lastName) throws Exception {
+		mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s", "firstName": "%s", "lastName": "%s"}
+								""".formatted(email, PASSWORD, firstName, lastName)))
+				.andExpect(status().isCreated());
+	}
+
+	private String login(String email) throws Exception {
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"email": "%s", "password": "%s"}
+								""".formatted(email, PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("token").asText();
+	}
+}
@@ -0,0 +1,86 @@
+package com.banking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The long-cents fast path must return exactly what the BigDecimal reference returns,
+ * scale included.
+ */
+class LoanCalculatorTests {
+
+	private static final int[] TERMS = {1, 6, 12, 36, 60, 120, 240, 360};
+
+	@Test
+	void monthlyPaymentMatchesReference() {
+		SplittableRandom random = new SplittableRandom(20240101);
+		for (int i = 0; i < 20_000; i++) {
+			BigDecimal principal = BigDecimal.valueOf(random.nextLong(100_000, 100_000_000), 2);
+			BigDecimal rate = BigDecimal.valueOf(random.nextLong(0, 3_001), 2);
+			int term = TERMS[i % TERMS.length];
+
+			assertThat(LoanCalculator.calculateMonthlyPayment(principal, rate, term))
+					.as("%s at %s%% over %d months", principal, rate, term)
+					.isEqualTo(LoanCalculator.calculateMonthlyPaymentExact(principal, rate, term));
+		}
+	}
+
+	@Test
+	void monthlyPaymentMatchesReferenceForOtherScales() {
+		int[][] cases = {{100_000, 0}, {1_000_000, 1}, {12_345_678, 2}};
+		String[] rates = {"12", "7.5", "12.50", "0.001", "9.9999999999"};
+		for (int[] principalCase : cases) {
+			BigDecimal principal = BigDecimal.valueOf(principalCase[0], principalCase[1]);
+			for (String rate : rates) {
+				for (int term : TERMS) {
+					assertThat(LoanCalculator.calculateMonthlyPayment(principal, new BigDecimal(rate), term))
+							.isEqualTo(LoanCalculator.calculateMonthlyPaymentExact(principal, new BigDecimal(rate), term));
+				}
+			}
+		}
+	}
+
+	@Test
+	void paymentPortionsMatchReference() {
+		SplittableRandom random = new SplittableRandom(20240102);
+		for (int i = 0; i < 50_000; i++) {
+			BigDecimal balance = BigDecimal.valueOf(random.nextLong(0, 100_000_000), 2);
+			BigDecimal payment = BigDecimal.valueOf(random.nextLong(1, 120_000_000), random.nextInt(3));
+			BigDecimal rate = BigDecimal.valueOf(random.nextLong(0, 3_001), 2);
+
+			assertThat(LoanCalculator.calculatePaymentPortions(payment, balance, rate))
+					.as("%s against %s at %s%%", payment, balance, rate)
+					.containsExactly(LoanCalculator.calculatePaymentPortionsExact(payment, balance, rate));
+		}
+	}
+
+	@Test
+	void fallsBackForAmountsWithMoreThanTwoDecimals() {
+		BigDecimal payment = new BigDecimal("100.005");
+		BigDecimal balance = new BigDecimal("1000.00");
+		BigDecimal rate = new BigDecimal("12.50");
+
+		assertThat(LoanCalculator.toCents(payment)).isEqualTo(-1);
+		assertThat(LoanCalculator.calculatePaymentPortions(payment, balance, rate))
+				.containsExactly(LoanCalculator.calculatePaymentPortionsExact(payment, balance, rate));
+	}
+
+	@Test
+	void dailyInterestMatchesReference() {
+		SplittableRandom random = new SplittableRandom(20240102);
+		for (int i = 0; i < 20_000; i++) {
+			BigDecimal balance = BigDecimal.valueOf(random.nextLong(0, 100_000_000), 2);
+			BigDecimal rate = BigDecimal.valueOf(random.nextLong(0, 3_001), 2);
+
+			assertThat(BigDecimal.valueOf(LoanCalculator.calculateDailyInterestMicros(
+					balance.unscaledValue().longValueExact(), rate.unscaledValue().longValueExact()), 6))
+					.as("%s at %s%%", balance, rate)
+					.isEqualTo(balance.multiply(rate).divide(BigDecimal.valueOf(36_500), 6, RoundingMode.HALF_UP));
+		}
+	}
+}